@@ -10,6 +10,7 @@ import java.util.UUID;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -44,6 +45,7 @@ public class BeerClientImpl implements BeerClient {
                 .queryParamIfPresent("beerStyle", Optional.ofNullable(beerStyle))
                 .queryParamIfPresent("showInventoryOnhand", Optional.ofNullable(showInventoryOnhand))
                 .build())
+            .accept(BeerPagedList.COMPACT_JSON, MediaType.APPLICATION_JSON)
             .retrieve()
             .bodyToMono(BeerPagedList.class);
     }
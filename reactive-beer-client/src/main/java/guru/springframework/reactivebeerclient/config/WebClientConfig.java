@@ -1,20 +1,41 @@
 package guru.springframework.reactivebeerclient.config;
 
+import guru.springframework.reactivebeerclient.model.BeerPagedList;
+import guru.springframework.reactivebeerclient.model.BeerPagedListModule;
 import reactor.netty.http.client.HttpClient;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class WebClientConfig {
 
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    /**
+     * Reads JSON, the compact page format, CBOR and Smile. Binary pages always use the compact layout. Request
+     * bodies are still written as JSON.
+     */
     @Bean
     public WebClient webClient() {
         return WebClient.builder()
             .baseUrl(WebClientProperties.BASE_URL)
             .clientConnector(new ReactorClientHttpConnector(HttpClient.create().wiretap(true)))
+            .codecs(configurer -> {
+                configurer.customCodecs().register(new Jackson2JsonDecoder(
+                    Jackson2ObjectMapperBuilder.json().modulesToInstall(new BeerPagedListModule()).build(), BeerPagedList.COMPACT_JSON));
+                configurer.customCodecs().register(new Jackson2CborDecoder(
+                    Jackson2ObjectMapperBuilder.cbor().modulesToInstall(new BeerPagedListModule()).build(), MediaType.APPLICATION_CBOR));
+                configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(
+                    Jackson2ObjectMapperBuilder.smile().modulesToInstall(new BeerPagedListModule()).build(), APPLICATION_SMILE));
+            })
             .build();
     }
 }
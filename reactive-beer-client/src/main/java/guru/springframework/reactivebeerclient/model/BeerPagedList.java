@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 
 import java.io.Serializable;
 import java.util.List;
@@ -18,6 +19,14 @@ public class BeerPagedList extends PageImpl<BeerDto> implements Serializable {
 
     static final long serialVersionUID = 1114715135625836949L;
 
+    /**
+     * Media type of the compact page format read by {@link BeerPagedListModule}.
+     */
+    public static final String COMPACT_JSON_VALUE = "application/vnd.sfg.page+json";
+    public static final MediaType COMPACT_JSON = MediaType.valueOf(COMPACT_JSON_VALUE);
+
+    private final String nextCursor;
+
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
     public BeerPagedList(@JsonProperty("content") List<BeerDto> content,
                          @JsonProperty("number") int number,
@@ -28,16 +37,31 @@ public class BeerPagedList extends PageImpl<BeerDto> implements Serializable {
                          @JsonProperty("totalPages") int totalPages,
                          @JsonProperty("sort") JsonNode sort,
                          @JsonProperty("first") boolean first,
-                         @JsonProperty("numberOfElements") int numberOfElements) {
+                         @JsonProperty("numberOfElements") int numberOfElements,
+                         @JsonProperty("nextCursor") String nextCursor) {
 
         super(content, PageRequest.of(number, size), totalElements);
+        this.nextCursor = nextCursor;
     }
 
-    public BeerPagedList(List<BeerDto> content, Pageable pageable, long total) {
+    public BeerPagedList(List<BeerDto> content, Pageable pageable, long total, String nextCursor) {
         super(content, pageable, total);
+        this.nextCursor = nextCursor;
+    }
+
+    public BeerPagedList(List<BeerDto> content, Pageable pageable, long total) {
+        this(content, pageable, total, null);
     }
 
     public BeerPagedList(List<BeerDto> content) {
         super(content);
+        this.nextCursor = null;
+    }
+
+    /**
+     * Cursor for the page after this one, or {@code null} when this is the last page or the server sends none.
+     */
+    public String getNextCursor() {
+        return nextCursor;
     }
 }
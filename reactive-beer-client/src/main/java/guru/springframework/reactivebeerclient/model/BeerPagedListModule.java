@@ -0,0 +1,62 @@
+package guru.springframework.reactivebeerclient.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Data;
+
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Reads the brewery's {@link BeerPagedList#COMPACT_JSON compact} page format:
+ * <pre>
+ * {"content":[...],"number":0,"size":25,"totalElements":120,"nextCursor":"MjU"}
+ * </pre>
+ * The client only ever reads pages, so the fields are bound to a plain holder rather than streamed; fields it does
+ * not know are ignored, so the brewery can add to the format. A page without a size is read as one unpaged page.
+ */
+public class BeerPagedListModule extends SimpleModule {
+
+    public BeerPagedListModule() {
+        super(BeerPagedListModule.class.getSimpleName());
+        addDeserializer(BeerPagedList.class, new Deserializer());
+    }
+
+    private static final class Deserializer extends StdDeserializer<BeerPagedList> {
+
+        private Deserializer() {
+            super(BeerPagedList.class);
+        }
+
+        @Override
+        public BeerPagedList deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            CompactPage page = ctxt.readValue(p, CompactPage.class);
+            List<BeerDto> content = page.getContent() != null ? page.getContent() : Collections.emptyList();
+            if (page.getSize() < 1) {
+                return new BeerPagedList(content);
+            }
+            long totalElements = page.getTotalElements() != null
+                ? page.getTotalElements()
+                : (long) page.getNumber() * page.getSize() + content.size();
+            return new BeerPagedList(content, PageRequest.of(page.getNumber(), page.getSize()), totalElements,
+                page.getNextCursor());
+        }
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class CompactPage {
+        private List<BeerDto> content;
+        private int number;
+        private int size;
+        private Long totalElements;
+        private String nextCursor;
+    }
+}
@@ -0,0 +1,50 @@
+package guru.springframework.reactivebeerclient.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BeerPagedListModuleTest {
+
+    /**
+     * Written by the brewery's own serializer and checked by its tests, so this reads exactly what the server sends.
+     */
+    static final Path BREWERY_FIXTURE = Paths.get("..", "sfg-reactive-brewery", "src", "test", "resources", "contracts",
+        "compact-page.json");
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BeerPagedListModule()).build();
+
+    @Test
+    void readsThePageTheBreweryWrites() throws Exception {
+        assumeTrue(Files.exists(BREWERY_FIXTURE), "the brewery is not checked out next to the client");
+
+        BeerPagedList page = objectMapper.readValue(BREWERY_FIXTURE.toFile(), BeerPagedList.class);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals("Mango Bobs", page.getContent().get(0).getBeerName());
+        assertEquals(new BigDecimal("12.95"), page.getContent().get(0).getPrice());
+        assertEquals(1, page.getNumber());
+        assertEquals(2, page.getSize());
+        assertEquals(40, page.getTotalElements());
+        assertEquals("NA", page.getNextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() throws Exception {
+        BeerPagedList page = objectMapper.readValue("{\"content\":[],\"number\":0,\"size\":25,\"totalElements\":0}",
+            BeerPagedList.class);
+
+        assertEquals(0, page.getTotalElements());
+        assertNull(page.getNextCursor());
+    }
+}
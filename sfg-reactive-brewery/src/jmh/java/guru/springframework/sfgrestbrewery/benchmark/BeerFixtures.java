@@ -0,0 +1,35 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+final class BeerFixtures {
+
+    private BeerFixtures() {
+    }
+
+    static Beer beer(int id) {
+        LocalDateTime created = LocalDateTime.of(2021, 10, 1, 12, 30, 15, 123_000_000).plusMinutes(id);
+        return Beer.builder()
+            .id(id)
+            .version(3L)
+            .beerName("Benchmark Beer " + id)
+            .beerStyle(BeerStyleEnum.values()[id % BeerStyleEnum.values().length])
+            .upc(String.valueOf(4000000000000L + id))
+            .quantityOnHand(id % 200)
+            .price(new BigDecimal("12.95"))
+            .createdDate(created)
+            .lastModifiedDate(created.plusDays(1))
+            .build();
+    }
+
+    static List<Beer> beers(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(BeerFixtures::beer).collect(Collectors.toList());
+    }
+}
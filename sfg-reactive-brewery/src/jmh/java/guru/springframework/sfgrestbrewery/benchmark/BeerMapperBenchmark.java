@@ -0,0 +1,56 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapperImpl;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Entity to DTO mapping done for every beer in every response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerMapperBenchmark {
+
+    private final BeerMapper beerMapper = new BeerMapperImpl();
+    private Beer beer;
+    private BeerDto beerDto;
+
+    @Setup
+    public void setUp() {
+        beer = BeerFixtures.beer(42);
+        beerDto = beerMapper.beerToBeerDtoWithInventory(beer);
+    }
+
+    @Benchmark
+    public BeerDto beerToBeerDto() {
+        return beerMapper.beerToBeerDto(beer);
+    }
+
+    @Benchmark
+    public BeerDto beerToBeerDtoWithInventory() {
+        return beerMapper.beerToBeerDtoWithInventory(beer);
+    }
+
+    @Benchmark
+    public Beer beerDtoToBeer() {
+        return beerMapper.beerDtoToBeer(beerDto);
+    }
+}
@@ -0,0 +1,88 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapperImpl;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedListModule;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson round trip of a beer page. The plain layout is read through the {@code @JsonCreator} constructor of
+ * {@link BeerPagedList}, as in the client; the compact one through {@link BeerPagedListModule}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerPagedListSerializationBenchmark {
+
+    @Param({"25", "250"})
+    private int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private BeerPagedList page;
+    private byte[] json;
+    private ObjectWriter compactWriter;
+    private ObjectReader compactReader;
+    private byte[] compactJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(BeerPagedList.class);
+        reader = objectMapper.readerFor(BeerPagedList.class);
+
+        BeerMapper beerMapper = new BeerMapperImpl();
+        page = new BeerPagedList(BeerFixtures.beers(pageSize).stream().map(beerMapper::beerToBeerDto).collect(Collectors.toList()),
+            PageRequest.of(0, pageSize), 10_000, "MTIz");
+        json = writer.writeValueAsBytes(page);
+
+        ObjectMapper compactMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BeerPagedListModule()).build();
+        compactWriter = compactMapper.writerFor(BeerPagedList.class);
+        compactReader = compactMapper.readerFor(BeerPagedList.class);
+        compactJson = compactWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public BeerPagedList deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] serializeCompact() throws IOException {
+        return compactWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public BeerPagedList deserializeCompact() throws IOException {
+        return compactReader.readValue(compactJson);
+    }
+}
@@ -0,0 +1,104 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.mappers.BeerMapperImpl;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedListModule;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encode and decode cost of a beer and a beer page in each v2 body format, all using the compact page layout. The
+ * encoded sizes are printed once per trial, since JMH has no column for bytes on the wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeerWireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"25"})
+    private int pageSize;
+
+    private ObjectWriter pageWriter;
+    private ObjectReader pageReader;
+    private ObjectWriter beerWriter;
+    private ObjectReader beerReader;
+    private BeerPagedList page;
+    private BeerDto beer;
+    private byte[] encodedPage;
+    private byte[] encodedBeer;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = builder(format).modulesToInstall(new BeerPagedListModule()).build();
+        pageWriter = objectMapper.writerFor(BeerPagedList.class);
+        pageReader = objectMapper.readerFor(BeerPagedList.class);
+        beerWriter = objectMapper.writerFor(BeerDto.class);
+        beerReader = objectMapper.readerFor(BeerDto.class);
+
+        BeerMapper beerMapper = new BeerMapperImpl();
+        page = new BeerPagedList(BeerFixtures.beers(pageSize).stream().map(beerMapper::beerToBeerDto).collect(Collectors.toList()),
+            PageRequest.of(0, pageSize), 10_000, "MTIz");
+        beer = page.getContent().get(0);
+        encodedPage = pageWriter.writeValueAsBytes(page);
+        encodedBeer = beerWriter.writeValueAsBytes(beer);
+        System.out.printf("%n%s: page of %d = %d bytes, beer = %d bytes%n", format, pageSize, encodedPage.length, encodedBeer.length);
+    }
+
+    private static Jackson2ObjectMapperBuilder builder(String format) {
+        switch (format) {
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile();
+            default:
+                return Jackson2ObjectMapperBuilder.json();
+        }
+    }
+
+    @Benchmark
+    public byte[] encodePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public BeerPagedList decodePage() throws IOException {
+        return pageReader.readValue(encodedPage);
+    }
+
+    @Benchmark
+    public byte[] encodeBeer() throws IOException {
+        return beerWriter.writeValueAsBytes(beer);
+    }
+
+    @Benchmark
+    public BeerDto decodeBeer() throws IOException {
+        return beerReader.readValue(encodedBeer);
+    }
+}
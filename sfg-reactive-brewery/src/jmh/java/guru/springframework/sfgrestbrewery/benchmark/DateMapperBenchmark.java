@@ -0,0 +1,41 @@
+package guru.springframework.sfgrestbrewery.benchmark;
+
+import guru.springframework.sfgrestbrewery.web.mappers.DateMapper;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateMapperBenchmark {
+
+    private final DateMapper dateMapper = new DateMapper();
+    private final Timestamp timestamp = Timestamp.valueOf("2021-10-01 12:30:15.123");
+    private final OffsetDateTime offsetDateTime = OffsetDateTime.of(2021, 10, 1, 12, 30, 15, 123_000_000, ZoneOffset.UTC);
+
+    @Benchmark
+    public OffsetDateTime asOffsetDateTime() {
+        return dateMapper.asOffsetDateTime(timestamp);
+    }
+
+    @Benchmark
+    public Timestamp asTimestamp() {
+        return dateMapper.asTimestamp(offsetDateTime);
+    }
+}
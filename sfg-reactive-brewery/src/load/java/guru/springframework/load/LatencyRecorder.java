@@ -0,0 +1,75 @@
+package guru.springframework.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms of one operation. Response time is measured from when the request was due to be sent, which
+ * corrects for coordinated omission: a stalled server is charged for the requests queued behind the stall. Service
+ * time is measured from when it was actually sent.
+ */
+class LatencyRecorder {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Histogram responseTime = new ConcurrentHistogram(3);
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    void record(long intendedNanos, long sentNanos, long completedNanos, boolean failed) {
+        responseTime.recordValue(completedNanos - intendedNanos);
+        serviceTime.recordValue(completedNanos - sentNanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Records a request the generator did not send as an error, charged the time from when it was due until it was
+     * given up on. It has no service time.
+     */
+    void recordDropped(long intendedNanos, long droppedNanos) {
+        responseTime.recordValue(Math.max(0, droppedNanos - intendedNanos));
+        errors.increment();
+        dropped.increment();
+    }
+
+    void add(LatencyRecorder other) {
+        responseTime.add(other.responseTime);
+        serviceTime.add(other.serviceTime);
+        errors.add(other.errors.sum());
+        dropped.add(other.dropped.sum());
+    }
+
+    long count() {
+        return responseTime.getTotalCount();
+    }
+
+    Map<String, Object> report(double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", count());
+        report.put("errors", errors.sum());
+        report.put("dropped", dropped.sum());
+        report.put("throughput", count() / seconds);
+        report.put("responseTimeMs", percentiles(responseTime));
+        report.put("serviceTimeMs", percentiles(serviceTime));
+        return report;
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        percentiles.put("mean", histogram.getMean() / NANOS_PER_MILLI);
+        percentiles.put("p50", histogram.getValueAtPercentile(50) / NANOS_PER_MILLI);
+        percentiles.put("p90", histogram.getValueAtPercentile(90) / NANOS_PER_MILLI);
+        percentiles.put("p99", histogram.getValueAtPercentile(99) / NANOS_PER_MILLI);
+        percentiles.put("p99.9", histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI);
+        percentiles.put("max", histogram.getMaxValue() / NANOS_PER_MILLI);
+        return percentiles;
+    }
+}
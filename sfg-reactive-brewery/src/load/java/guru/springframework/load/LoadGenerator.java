@@ -0,0 +1,264 @@
+package guru.springframework.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import io.netty.channel.ChannelOption;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Open-model load generator for the beer APIs of a running brewery. Requests are started at a fixed rate
+ * whatever the server's response times, as independent users would, and each one's response time is measured from
+ * when it was due, so queueing behind a slow response is not hidden (no coordinated omission).
+ * <p>
+ * Configured with {@code load.*} properties, e.g.
+ * {@code mvn -Pload -DskipTests verify -Dload.rate=500 -Dload.duration=2m -Dload.write-ratio=0.1}. Writes create and
+ * update beers, so run it against a disposable database.
+ */
+@Slf4j
+@SpringBootConfiguration
+@EnableConfigurationProperties(LoadProperties.class)
+@RequiredArgsConstructor
+public class LoadGenerator implements ApplicationRunner {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong upcSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(LoadGenerator.class)
+            .web(WebApplicationType.NONE)
+            // keep the brewery's application.properties (and its trace logging) out of the generator
+            .properties("spring.config.name=load-generator")
+            .run(args);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        WebClient webClient = webClient();
+        List<BeerDto> catalog = webClient.get().uri("/api/v2/beer/stream")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .retrieve()
+            .bodyToFlux(BeerDto.class)
+            .collectList()
+            .block();
+        if (catalog == null || catalog.isEmpty()) {
+            throw new IllegalStateException("No beers found at " + properties.getBaseUrl());
+        }
+        log.info("Driving {} beers at {} requests/s for {} after {} warm-up", catalog.size(), properties.getRate(),
+            properties.getDuration(), properties.getWarmup());
+
+        List<Operation> reads = new ArrayList<>();
+        List<Operation> writes = new ArrayList<>();
+        for (String api : properties.getApis()) {
+            reads.addAll(readOperations(webClient, api, catalog));
+            writes.addAll(writeOperations(webClient, api, catalog));
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + properties.getWarmup().toNanos();
+        long end = measureFrom + properties.getDuration().toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * TimeUnit.SECONDS.toNanos(1) / properties.getRate();
+            if (intended >= end) {
+                break;
+            }
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<Operation> operations = random.nextDouble() < properties.getWriteRatio() ? writes : reads;
+            Operation operation = operations.get(random.nextInt(operations.size()));
+            send(operation, intended, intended >= measureFrom);
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        report(reads, writes);
+    }
+
+    private void send(Operation operation, long intended, boolean measured) {
+        if (inFlight.incrementAndGet() > properties.getMaxInFlight()) {
+            inFlight.decrementAndGet();
+            if (measured) {
+                // hiding requests the server was too slow to take would understate its latency under overload
+                operation.recorder.recordDropped(intended, System.nanoTime());
+            }
+            return;
+        }
+        long sent = System.nanoTime();
+        operation.request.get().subscribe(
+            response -> {
+            },
+            error -> completed(operation, intended, sent, measured, true),
+            () -> completed(operation, intended, sent, measured, false));
+    }
+
+    private void completed(Operation operation, long intended, long sent, boolean measured, boolean failed) {
+        inFlight.decrementAndGet();
+        if (measured) {
+            operation.recorder.record(intended, sent, System.nanoTime(), failed);
+        }
+    }
+
+    private List<Operation> readOperations(WebClient webClient, String api, List<BeerDto> catalog) {
+        String beerUrl = "/api/" + api + "/beer";
+        String upcUrl = "v1".equals(api) ? "/api/v1/beerUpc/{upc}" : "/api/v2/beer/beerUpc/{upc}";
+        int pages = Math.max(1, catalog.size() / 25);
+
+        List<Operation> operations = new ArrayList<>();
+        operations.add(new Operation(api + ".listBeers", () -> get(webClient,
+            beerUrl + "?pageNumber=" + ThreadLocalRandom.current().nextInt(pages) + "&pageSize=25")));
+        operations.add(new Operation(api + ".getBeerById", () -> get(webClient,
+            beerUrl + "/" + randomBeer(catalog).getId())));
+        operations.add(new Operation(api + ".getBeerByUpc", () -> get(webClient,
+            upcUrl.replace("{upc}", String.valueOf(randomBeer(catalog).getUpc())))));
+        return operations;
+    }
+
+    private List<Operation> writeOperations(WebClient webClient, String api, List<BeerDto> catalog) {
+        String beerUrl = "/api/" + api + "/beer";
+
+        List<Operation> operations = new ArrayList<>();
+        operations.add(new Operation(api + ".saveNewBeer", () -> webClient.post().uri(beerUrl)
+            .accept(MediaType.APPLICATION_JSON)
+            .bodyValue(newBeer())
+            .retrieve()
+            .toBodilessEntity()));
+        operations.add(new Operation(api + ".updateBeer", () -> {
+            BeerDto beer = randomBeer(catalog);
+            return webClient.put().uri(beerUrl + "/" + beer.getId())
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedBeer(beer))
+                .retrieve()
+                .toBodilessEntity();
+        }));
+        return operations;
+    }
+
+    private static Mono<?> get(WebClient webClient, String uri) {
+        return webClient.get().uri(uri)
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .bodyToMono(byte[].class);
+    }
+
+    private static BeerDto randomBeer(List<BeerDto> catalog) {
+        return catalog.get(ThreadLocalRandom.current().nextInt(catalog.size()));
+    }
+
+    private BeerDto newBeer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long upc = upcSequence.incrementAndGet();
+        return BeerDto.builder()
+            .beerName("Load Test Beer " + upc)
+            .beerStyle(BeerStyleEnum.values()[random.nextInt(BeerStyleEnum.values().length)].name())
+            .upc(String.valueOf(upc))
+            .price(BigDecimal.valueOf(random.nextInt(500, 2500), 2))
+            .build();
+    }
+
+    /**
+     * A new name, style and price for the beer; the UPC is kept so the UPC reads keep finding it.
+     */
+    private static BeerDto updatedBeer(BeerDto beer) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return BeerDto.builder()
+            .beerName("Load Test Beer " + beer.getId() + "-" + random.nextInt(1000))
+            .beerStyle(BeerStyleEnum.values()[random.nextInt(BeerStyleEnum.values().length)].name())
+            .upc(beer.getUpc())
+            .price(BigDecimal.valueOf(random.nextInt(500, 2500), 2))
+            .build();
+    }
+
+    private WebClient webClient() {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("load-generator")
+            .maxConnections(properties.getMaxConnections())
+            .pendingAcquireMaxCount(-1)
+            .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5_000)
+            .responseTimeout(Duration.ofSeconds(30));
+        return WebClient.builder()
+            .baseUrl(properties.getBaseUrl())
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+            .build();
+    }
+
+    private void report(List<Operation> reads, List<Operation> writes) throws IOException {
+        double seconds = properties.getDuration().toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        LatencyRecorder total = new LatencyRecorder();
+        Map<String, Object> operations = new LinkedHashMap<>();
+        List<Operation> all = new ArrayList<>(reads);
+        all.addAll(writes);
+        for (Operation operation : all) {
+            total.add(operation.recorder);
+            operations.put(operation.name, operation.recorder.report(seconds));
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("baseUrl", properties.getBaseUrl());
+        settings.put("rate", properties.getRate());
+        settings.put("warmupSeconds", properties.getWarmup().getSeconds());
+        settings.put("durationSeconds", properties.getDuration().getSeconds());
+        settings.put("writeRatio", properties.getWriteRatio());
+        settings.put("apis", properties.getApis());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("total", total.report(seconds));
+        report.put("operations", operations);
+
+        if (properties.getReport().getParent() != null) {
+            Files.createDirectories(properties.getReport().getParent());
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(properties.getReport().toFile(), report);
+        log.info("Load report:\n{}", objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report.get("total")));
+        log.info("Full report written to {}", properties.getReport().toAbsolutePath());
+    }
+
+    @RequiredArgsConstructor
+    private static final class Operation {
+        private final String name;
+        private final Supplier<Mono<?>> request;
+        private final LatencyRecorder recorder = new LatencyRecorder();
+    }
+}
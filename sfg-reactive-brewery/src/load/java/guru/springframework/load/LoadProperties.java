@@ -0,0 +1,47 @@
+package guru.springframework.load;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "load")
+public class LoadProperties {
+
+    private String baseUrl = "http://localhost:8080";
+
+    /**
+     * Requests started per second, whether or not earlier requests have completed.
+     */
+    private int rate = 100;
+
+    private Duration warmup = Duration.ofSeconds(10);
+
+    private Duration duration = Duration.ofSeconds(60);
+
+    /**
+     * Share of requests that write (create or update a beer), between 0 and 1.
+     */
+    private double writeRatio = 0.05;
+
+    /**
+     * API versions to drive, {@code v1} and/or {@code v2}.
+     */
+    private List<String> apis = Arrays.asList("v1", "v2");
+
+    private int maxConnections = 500;
+
+    /**
+     * Requests still running beyond this many are not sent, so an overloaded server cannot exhaust the generator's
+     * memory. Each one is reported as a dropped error, with the response time it had waited when it was dropped.
+     */
+    private int maxInFlight = 10_000;
+
+    private Path report = Paths.get("target", "load-report.json");
+}
@@ -1,14 +1,7 @@
 package guru.springframework.sfgrestbrewery;
 
-import io.r2dbc.spi.ConnectionFactory;
-
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
-import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
 
 @SpringBootApplication
 public class SfgReactiveBreweryApplication {
@@ -17,12 +10,4 @@ public class SfgReactiveBreweryApplication {
         SpringApplication.run(SfgReactiveBreweryApplication.class, args);
     }
 
-    @Bean
-    ConnectionFactoryInitializer initializer(@Qualifier("connectionFactory") ConnectionFactory connectionFactory) {
-        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
-        initializer.setConnectionFactory(connectionFactory);
-        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")));
-        return initializer;
-    }
-
 }
@@ -0,0 +1,82 @@
+package guru.springframework.sfgrestbrewery.bootstrap;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Generates synthetic beers with catalog-like distributions: styles are skewed towards IPAs and lagers, prices are
+ * log-normal around nine dollars and inventory is exponential with a share of sold-out beers. UPCs are valid
+ * EAN-13 codes, unique per sequence number.
+ */
+class BeerDataGenerator {
+
+    private static final String[] ADJECTIVES = {"Hazy", "Golden", "Dark", "Wild", "Old", "Bitter", "Smoked",
+        "Double", "Royal", "Lazy", "Crooked", "Midnight", "Barrel Aged", "Little", "Red"};
+    private static final String[] NOUNS = {"Fox", "Harbor", "Anchor", "Owl", "Lantern", "River", "Summit",
+        "Monk", "Trail", "Bandit", "Orchard", "Comet", "Lighthouse", "Badger", "Canyon"};
+
+    private static final BeerStyleEnum[] STYLES = BeerStyleEnum.values();
+    // weights follow STYLES order: LAGER, PILSNER, STOUT, GOSE, PORTER, ALE, WHEAT, IPA, PALE_ALE, SAISON
+    private static final int[] STYLE_WEIGHTS = {18, 8, 9, 2, 5, 12, 7, 24, 11, 4};
+    private static final int TOTAL_STYLE_WEIGHT = 100;
+
+    private static final long UPC_BASE = 400_000_000_000L;
+
+    private final Random random;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    BeerDataGenerator(Random random) {
+        this.random = random;
+    }
+
+    Beer generate(long sequence) {
+        BeerStyleEnum style = nextStyle();
+        return Beer.builder()
+            .beerName(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " "
+                + style.name().replace('_', ' ').toLowerCase())
+            .beerStyle(style)
+            .upc(upc(sequence))
+            .price(nextPrice())
+            .quantityOnHand(nextQuantityOnHand())
+            .createdDate(now)
+            .lastModifiedDate(now)
+            .build();
+    }
+
+    private BeerStyleEnum nextStyle() {
+        int pick = random.nextInt(TOTAL_STYLE_WEIGHT);
+        for (int i = 0; i < STYLES.length; i++) {
+            pick -= STYLE_WEIGHTS[i];
+            if (pick < 0) {
+                return STYLES[i];
+            }
+        }
+        return STYLES[STYLES.length - 1];
+    }
+
+    private BigDecimal nextPrice() {
+        double price = Math.exp(Math.log(9.0) + 0.45 * random.nextGaussian());
+        return BigDecimal.valueOf(Math.min(Math.max(price, 1.0), 99.99)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private int nextQuantityOnHand() {
+        if (random.nextInt(100) < 6) {
+            return 0;
+        }
+        return (int) Math.min(Math.round(-Math.log(1.0 - random.nextDouble()) * 400), 10_000);
+    }
+
+    private static String upc(long sequence) {
+        String digits = String.format("%012d", UPC_BASE + sequence);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+}
@@ -1,23 +1,31 @@
 package guru.springframework.sfgrestbrewery.bootstrap;
 
 import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.repositories.BeerBatchRepository;
 import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @RequiredArgsConstructor
 @Component
+@EnableConfigurationProperties(BeerLoaderProperties.class)
 public class BeerLoader implements CommandLineRunner {
 
     public static final String BEER_1_UPC = "0631234200036";
@@ -53,319 +61,91 @@ public class BeerLoader implements CommandLineRunner {
 
 
     private final BeerRepository beerRepository;
+    private final BeerBatchRepository beerBatchRepository;
+    private final BeerLoaderProperties properties;
+
+    private final Random random = new Random();
 
     @Override
     public void run(String... args) {
-        loadBeerObjects();
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        Long loaded = beerRepository.count()
+            .doOnNext(count -> log.debug("Loading initial data. Count is: {}", count))
+            .filter(count -> count == 0L)
+            .flatMap(count -> loadBeerObjects())
+            .defaultIfEmpty(0L)
+            .block();
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("Beer Records loaded: {} in {} s ({} rows/s), JVM up {} ms", loaded, String.format("%.2f", seconds),
+            String.format("%.0f", loaded / Math.max(seconds, 0.001)), ManagementFactory.getRuntimeMXBean().getUptime());
     }
 
-    private synchronized void loadBeerObjects() {
-        Long count = beerRepository.count().block();
-        log.debug("Loading initial data. Count is: {}", count);
-
-        if (count != null && count.equals(0L)) {
-
-            Random random = new Random();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Mango Bobs")
-                .beerStyle(BeerStyleEnum.ALE)
-                .upc(BEER_1_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Galaxy Cat")
-                .beerStyle(BeerStyleEnum.PALE_ALE)
-                .upc(BEER_2_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("No Hammers On The Bar")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_3_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Blessed")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_4_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Adjunct Trail")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_5_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Very GGGreenn")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_6_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Double Barrel Hunahpu's")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_7_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Very Hazy")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_8_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("SR-71")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_9_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Pliny the Younger")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_10_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Blessed")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_11_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("King Krush")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_12_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("PBS Porter")
-                .beerStyle(BeerStyleEnum.PORTER)
-                .upc(BEER_13_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Pinball Porter")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_14_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Golden Budda")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_15_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Grand Central Red")
-                .beerStyle(BeerStyleEnum.LAGER)
-                .upc(BEER_16_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Pac-Man")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_17_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Ro Sham Bo")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_18_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Summer Wheatly")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_19_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Java Jill")
-                .beerStyle(BeerStyleEnum.LAGER)
-                .upc(BEER_20_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Bike Trail Pale")
-                .beerStyle(BeerStyleEnum.PALE_ALE)
-                .upc(BEER_21_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("N.Z.P")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_22_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Stawberry Blond")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_23_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Loco")
-                .beerStyle(BeerStyleEnum.PORTER)
-                .upc(BEER_24_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Spocktoberfest")
-                .beerStyle(BeerStyleEnum.STOUT)
-                .upc(BEER_25_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Beach Blond Ale")
-                .beerStyle(BeerStyleEnum.ALE)
-                .upc(BEER_26_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Bimini Twist IPA")
-                .beerStyle(BeerStyleEnum.IPA)
-                .upc(BEER_27_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Rod Bender Red Ale")
-                .beerStyle(BeerStyleEnum.ALE)
-                .upc(BEER_28_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
-
-            beerRepository.save(Beer.builder()
-                .beerName("Floating Dock")
-                .beerStyle(BeerStyleEnum.SAISON)
-                .upc(BEER_29_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
+    /**
+     * Inserts the reference beers as one batch, then the synthetic beers in batches with bounded concurrency.
+     * Emits the number of rows inserted.
+     */
+    private Mono<Long> loadBeerObjects() {
+        BeerDataGenerator generator = new BeerDataGenerator(properties.getSeed() != null ? new Random(properties.getSeed()) : random);
+
+        Mono<Long> referenceBeers = beerBatchRepository.insertAll(referenceBeers()).count();
+        Mono<Long> syntheticBeers = Flux.range(0, properties.getSyntheticBeers())
+            .map(generator::generate)
+            .buffer(properties.getBatchSize())
+            .flatMap(batch -> beerBatchRepository.insertAll(batch).count(), properties.getConcurrency())
+            .reduce(0L, Long::sum);
+
+        // sequential, so the reference beers keep ids 1..30
+        return referenceBeers.flatMap(reference -> syntheticBeers.map(synthetic -> reference + synthetic));
+    }
 
-            beerRepository.save(Beer.builder()
-                .beerName("El Hefe")
-                .beerStyle(BeerStyleEnum.WHEAT)
-                .upc(BEER_30_UPC)
-                .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
-                .quantityOnHand(random.nextInt(5000))
-                .createdDate(LocalDateTime.now())
-                .lastModifiedDate(LocalDateTime.now())
-                .build()).block();
+    private List<Beer> referenceBeers() {
+        return Arrays.asList(
+            beer("Mango Bobs", BeerStyleEnum.ALE, BEER_1_UPC),
+            beer("Galaxy Cat", BeerStyleEnum.PALE_ALE, BEER_2_UPC),
+            beer("No Hammers On The Bar", BeerStyleEnum.WHEAT, BEER_3_UPC),
+            beer("Blessed", BeerStyleEnum.STOUT, BEER_4_UPC),
+            beer("Adjunct Trail", BeerStyleEnum.STOUT, BEER_5_UPC),
+            beer("Very GGGreenn", BeerStyleEnum.IPA, BEER_6_UPC),
+            beer("Double Barrel Hunahpu's", BeerStyleEnum.STOUT, BEER_7_UPC),
+            beer("Very Hazy", BeerStyleEnum.IPA, BEER_8_UPC),
+            beer("SR-71", BeerStyleEnum.STOUT, BEER_9_UPC),
+            beer("Pliny the Younger", BeerStyleEnum.IPA, BEER_10_UPC),
+            beer("Blessed", BeerStyleEnum.STOUT, BEER_11_UPC),
+            beer("King Krush", BeerStyleEnum.IPA, BEER_12_UPC),
+            beer("PBS Porter", BeerStyleEnum.PORTER, BEER_13_UPC),
+            beer("Pinball Porter", BeerStyleEnum.STOUT, BEER_14_UPC),
+            beer("Golden Budda", BeerStyleEnum.STOUT, BEER_15_UPC),
+            beer("Grand Central Red", BeerStyleEnum.LAGER, BEER_16_UPC),
+            beer("Pac-Man", BeerStyleEnum.STOUT, BEER_17_UPC),
+            beer("Ro Sham Bo", BeerStyleEnum.IPA, BEER_18_UPC),
+            beer("Summer Wheatly", BeerStyleEnum.WHEAT, BEER_19_UPC),
+            beer("Java Jill", BeerStyleEnum.LAGER, BEER_20_UPC),
+            beer("Bike Trail Pale", BeerStyleEnum.PALE_ALE, BEER_21_UPC),
+            beer("N.Z.P", BeerStyleEnum.IPA, BEER_22_UPC),
+            beer("Stawberry Blond", BeerStyleEnum.WHEAT, BEER_23_UPC),
+            beer("Loco", BeerStyleEnum.PORTER, BEER_24_UPC),
+            beer("Spocktoberfest", BeerStyleEnum.STOUT, BEER_25_UPC),
+            beer("Beach Blond Ale", BeerStyleEnum.ALE, BEER_26_UPC),
+            beer("Bimini Twist IPA", BeerStyleEnum.IPA, BEER_27_UPC),
+            beer("Rod Bender Red Ale", BeerStyleEnum.ALE, BEER_28_UPC),
+            beer("Floating Dock", BeerStyleEnum.SAISON, BEER_29_UPC),
+            beer("El Hefe", BeerStyleEnum.WHEAT, BEER_30_UPC));
+    }
 
-            log.debug("Beer Records loaded: {}", beerRepository.count().block());
-        }
+    private Beer beer(String beerName, BeerStyleEnum beerStyle, String upc) {
+        return Beer.builder()
+            .beerName(beerName)
+            .beerStyle(beerStyle)
+            .upc(upc)
+            .price(new BigDecimal(BigInteger.valueOf(random.nextInt(10000)), 2))
+            .quantityOnHand(random.nextInt(5000))
+            .createdDate(LocalDateTime.now())
+            .lastModifiedDate(LocalDateTime.now())
+            .build();
     }
 }
@@ -0,0 +1,29 @@
+package guru.springframework.sfgrestbrewery.bootstrap;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.loader")
+public class BeerLoaderProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Number of generated beers loaded after the 30 reference beers.
+     */
+    private int syntheticBeers = 0;
+
+    private int batchSize = 1_000;
+
+    /**
+     * Maximum number of batch inserts in flight at once.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Seed for the generator, so a dataset can be reproduced. Unset means a random seed.
+     */
+    private Long seed;
+}
@@ -0,0 +1,158 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Async cache of resolved beer lookups. Values are cached once the R2DBC query completes, so a hit never
+ * touches the database; empty and failed lookups are not cached.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(BeerCacheProperties.class)
+public class BeerCache implements BeerChangeListener {
+
+    private final BeerCacheProperties properties;
+    private final AsyncCache<Integer, BeerDto> beersById;
+    private final AsyncCache<String, BeerDto> beersByUpc;
+    private final AsyncCache<BeerListKey, BeerPagedList> beerPages;
+    private final AsyncCache<BeerFilter, Long> beerCounts;
+
+    public BeerCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.beersById = CaffeineCacheMetrics.monitor(meterRegistry, build(properties.getBeerMaximumSize()), "beerCache");
+        this.beersByUpc = CaffeineCacheMetrics.monitor(meterRegistry, build(properties.getBeerMaximumSize()), "beerUpcCache");
+        this.beerPages = CaffeineCacheMetrics.monitor(meterRegistry, build(properties.getPageMaximumSize()), "beerListCache");
+        this.beerCounts = CaffeineCacheMetrics.monitor(meterRegistry, build(properties.getPageMaximumSize()), "beerCountCache");
+    }
+
+    public Mono<BeerDto> getById(Integer beerId, Function<Integer, Mono<BeerDto>> loader) {
+        return get(beersById, beerId, loader);
+    }
+
+    /**
+     * The cached beers among {@code beerIds}, with the rest read by one call to {@code loader}. Ids the loader finds
+     * nothing for are left out of the map.
+     */
+    public Mono<Map<Integer, BeerDto>> getAllById(Collection<Integer> beerIds, Function<List<Integer>, Mono<Map<Integer, BeerDto>>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(new ArrayList<>(beerIds));
+        }
+        return Mono.defer(() -> Mono.fromFuture(beersById.getAll(beerIds, (missing, executor) -> {
+            List<Integer> ids = new ArrayList<>();
+            missing.forEach(ids::add);
+            return loader.apply(ids).toFuture();
+        })));
+    }
+
+    public Mono<BeerDto> getByUpc(String upc, Function<String, Mono<BeerDto>> loader) {
+        return get(beersByUpc, upc, loader);
+    }
+
+    public Mono<BeerPagedList> getPage(BeerListKey key, Function<BeerListKey, Mono<BeerPagedList>> loader) {
+        return get(beerPages, key, loader);
+    }
+
+    public Mono<Long> count(BeerFilter filter, Function<BeerFilter, Mono<Long>> loader) {
+        return get(beerCounts, filter, loader);
+    }
+
+    @Override
+    public void onCreated(Collection<Beer> beers) {
+        evict(beers);
+    }
+
+    @Override
+    public void onUpdated(Beer previous, Beer current) {
+        evict(Arrays.asList(previous, current));
+    }
+
+    @Override
+    public void onDeleted(Beer beer) {
+        evict(beer);
+    }
+
+    /**
+     * Drops every entry the given beer state can appear in: its id, its UPC and each page and count whose filter
+     * it matches. Call it with both the old and the new state of an updated beer.
+     */
+    public void evict(Beer beer) {
+        if (beer != null) {
+            evict(Collections.singletonList(beer));
+        }
+    }
+
+    public void evict(Collection<Beer> beers) {
+        if (beers.isEmpty()) {
+            return;
+        }
+        for (Beer beer : beers) {
+            if (beer.getId() != null) {
+                beersById.synchronous().invalidate(beer.getId());
+            }
+            if (beer.getUpc() != null) {
+                beersByUpc.synchronous().invalidate(beer.getUpc());
+            }
+        }
+        beerPages.synchronous().asMap().keySet().removeIf(key -> beers.stream().anyMatch(key::matches));
+        beerCounts.synchronous().asMap().keySet().removeIf(filter -> beers.stream().anyMatch(filter::matches));
+        log.debug("Evicted cached entries for {} beer(s)", beers.size());
+    }
+
+    /**
+     * The beer cached under its id, as far as its DTO tells, without loading it; {@code null} when not cached.
+     */
+    public Beer getIfPresent(Integer beerId) {
+        CompletableFuture<BeerDto> future = beersById.getIfPresent(beerId);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        BeerDto beer = future.join();
+        return beer == null ? null : Beer.builder()
+            .id(beer.getId())
+            .version(beer.getVersion())
+            .beerName(beer.getBeerName())
+            .beerStyle(beer.getBeerStyle() != null ? BeerStyleEnum.valueOf(beer.getBeerStyle()) : null)
+            .upc(beer.getUpc())
+            .price(beer.getPrice())
+            .createdDate(beer.getCreatedDate())
+            .build();
+    }
+
+    private <K, V> Mono<V> get(AsyncCache<K, V> cache, K key, Function<K, Mono<V>> loader) {
+        if (!properties.isEnabled() || key == null) {
+            return loader.apply(key);
+        }
+        return Mono.defer(() -> Mono.fromFuture(cache.get(key, (k, executor) -> loader.apply(k).toFuture())));
+    }
+
+    private <K, V> AsyncCache<K, V> build(long maximumSize) {
+        return Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .buildAsync();
+    }
+}
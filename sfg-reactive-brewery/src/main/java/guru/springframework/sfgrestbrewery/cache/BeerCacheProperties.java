@@ -0,0 +1,30 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.cache")
+public class BeerCacheProperties {
+
+    private boolean enabled = true;
+
+    private long beerMaximumSize = 10_000;
+
+    private long pageMaximumSize = 1_000;
+
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    /**
+     * Bytes of encoded response bodies kept for the hot GET endpoints. Zero turns the body cache off.
+     */
+    private long responseMaximumBytes = 64 * 1024 * 1024;
+
+    /**
+     * Bodies at least this large are also kept gzipped, for clients that accept it.
+     */
+    private int gzipMinSize = 1024;
+}
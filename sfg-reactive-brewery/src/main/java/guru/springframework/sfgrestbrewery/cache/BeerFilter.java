@@ -0,0 +1,27 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import lombok.Value;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * The {@code listBeers} filter, shared by cached pages and cached counts.
+ */
+@Value
+public class BeerFilter {
+    String beerName;
+    BeerStyleEnum beerStyle;
+
+    /**
+     * True when the given beer passes this filter, i.e. writing it can change what the filter selects.
+     */
+    public boolean matches(Beer beer) {
+        if (!ObjectUtils.isEmpty(beerName) && (beer.getBeerName() == null || !beer.getBeerName().contains(beerName))) {
+            return false;
+        }
+        return beerStyle == null || beerStyle == beer.getBeerStyle();
+    }
+}
@@ -0,0 +1,25 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
+
+import lombok.Value;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Identifies one cached page of {@code listBeers}: the filter plus the requested page, order and cursor.
+ */
+@Value
+public class BeerListKey {
+    BeerFilter filter;
+    int pageNumber;
+    int pageSize;
+    Sort sort;
+    BeerCursor cursor;
+    boolean withTotal;
+
+    public boolean matches(Beer beer) {
+        return filter.matches(beer);
+    }
+}
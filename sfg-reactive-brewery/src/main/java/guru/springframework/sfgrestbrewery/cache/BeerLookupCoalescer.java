@@ -0,0 +1,127 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-flight beer lookups: callers asking for a key that is already being read join that read instead of
+ * starting their own, so a popular beer falling out of the cache costs one query rather than one per request.
+ * Nothing is kept once the read completes; that is {@link BeerCache}'s job, and lookups that bypass the cache (live
+ * inventory, cache disabled) are coalesced all the same.
+ * <p>
+ * A shared read is cancelled only when every caller waiting on it has cancelled. Writes drop the affected in-flight
+ * reads, so a caller arriving after a write never gets a row read before it.
+ */
+@Component
+public class BeerLookupCoalescer implements BeerChangeListener {
+
+    public static final String LOOKUPS = "beer.lookup";
+    public static final String IN_FLIGHT = "beer.lookup.in.flight";
+
+    private final Flights<Integer> beersById;
+    private final Flights<String> beersByUpc;
+
+    public BeerLookupCoalescer(MeterRegistry meterRegistry) {
+        this.beersById = new Flights<>("id", meterRegistry);
+        this.beersByUpc = new Flights<>("upc", meterRegistry);
+    }
+
+    public Mono<Beer> getById(Integer beerId, Function<Integer, Mono<Beer>> loader) {
+        return beersById.get(beerId, loader);
+    }
+
+    public Mono<Beer> getByUpc(String upc, Function<String, Mono<Beer>> loader) {
+        return beersByUpc.get(upc, loader);
+    }
+
+    @Override
+    public void onCreated(Collection<Beer> beers) {
+        // a read that found nothing for the new UPC must not be handed to anyone else
+        beers.forEach(this::forget);
+    }
+
+    @Override
+    public void onUpdated(Beer previous, Beer current) {
+        Arrays.asList(previous, current).forEach(this::forget);
+    }
+
+    @Override
+    public void onDeleted(Beer beer) {
+        forget(beer);
+    }
+
+    private void forget(Beer beer) {
+        if (beer != null) {
+            beersById.forget(beer.getId());
+            beersByUpc.forget(beer.getUpc());
+        }
+    }
+
+    /**
+     * In-flight reads of one lookup, counted as {@code loaded} when a caller starts a read and {@code joined} when
+     * it shares one.
+     */
+    private static final class Flights<K> {
+
+        private final ConcurrentMap<K, Mono<Beer>> inFlight = new ConcurrentHashMap<>();
+        private final Counter loaded;
+        private final Counter joined;
+
+        private Flights(String lookup, MeterRegistry meterRegistry) {
+            this.loaded = meterRegistry.counter(LOOKUPS, "lookup", lookup, "result", "loaded");
+            this.joined = meterRegistry.counter(LOOKUPS, "lookup", lookup, "result", "joined");
+            Gauge.builder(IN_FLIGHT, inFlight, Map::size).tag("lookup", lookup).register(meterRegistry);
+        }
+
+        private Mono<Beer> get(K key, Function<K, Mono<Beer>> loader) {
+            if (key == null) {
+                return loader.apply(key);
+            }
+            return Mono.defer(() -> {
+                Mono<Beer> flight = inFlight.get(key);
+                if (flight == null) {
+                    Mono<Beer> started = flight(key, loader);
+                    flight = inFlight.putIfAbsent(key, started);
+                    if (flight == null) {
+                        loaded.increment();
+                        return started;
+                    }
+                }
+                joined.increment();
+                return flight;
+            });
+        }
+
+        /**
+         * {@link Mono#share()} counts its subscribers: one of them cancelling leaves the read running for the rest,
+         * and a caller joining after all of them cancelled starts it again.
+         */
+        private Mono<Beer> flight(K key, Function<K, Mono<Beer>> loader) {
+            AtomicReference<Mono<Beer>> flight = new AtomicReference<>();
+            flight.set(Mono.defer(() -> loader.apply(key))
+                .doFinally(signal -> inFlight.remove(key, flight.get()))
+                .share());
+            return flight.get();
+        }
+
+        private void forget(K key) {
+            if (key != null) {
+                inFlight.remove(key);
+            }
+        }
+    }
+}
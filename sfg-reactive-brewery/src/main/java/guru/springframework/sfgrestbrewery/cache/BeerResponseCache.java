@@ -0,0 +1,140 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encoded bodies of the hot beer and page responses, so that serving a popular beer again costs neither Jackson
+ * nor, for clients accepting gzip, compression. Bodies are encoded with the server's own codecs and keyed by the
+ * representation's ETag, which changes with the beer's version and the media type: a write never has to find the
+ * bodies it outdates, they stop being asked for and are evicted by size or expire
+ * {@link BeerCacheProperties#getExpireAfterWrite() after write}, like the other beer caches.
+ */
+@Component
+@EnableConfigurationProperties(BeerCacheProperties.class)
+public class BeerResponseCache {
+
+    private final BeerCacheProperties properties;
+    private final ObjectProvider<ServerCodecConfigurer> codecConfigurer;
+    private final Cache<String, EncodedBody> bodies;
+
+    public BeerResponseCache(BeerCacheProperties properties, ObjectProvider<ServerCodecConfigurer> codecConfigurer,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.codecConfigurer = codecConfigurer;
+        this.bodies = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+            .maximumWeight(properties.getResponseMaximumBytes())
+            .weigher((String key, EncodedBody body) -> body.weight())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .build(), "beerResponseCache");
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled() && properties.getResponseMaximumBytes() > 0 && codecConfigurer.getIfAvailable() != null;
+    }
+
+    /**
+     * The body of the representation with the given ETag, encoded on first use.
+     */
+    public EncodedBody get(String eTag, Object body, MediaType mediaType) {
+        return bodies.get(body.getClass().getSimpleName() + ':' + eTag, key -> {
+            byte[] identity = encode(body, mediaType);
+            return new EncodedBody(identity, identity.length >= properties.getGzipMinSize() ? gzip(identity) : null);
+        });
+    }
+
+    /**
+     * Whether the request's Accept-Encoding allows gzip, by name or wildcard, with a non-zero quality.
+     */
+    public static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                if ("gzip".equalsIgnoreCase(name) || "*".equals(name)) {
+                    return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] encode(Object body, MediaType mediaType) {
+        ResolvableType type = ResolvableType.forInstance(body);
+        for (HttpMessageWriter<?> writer : codecConfigurer.getObject().getWriters()) {
+            if (writer instanceof EncoderHttpMessageWriter && writer.canWrite(type, mediaType)) {
+                Encoder<Object> encoder = (Encoder<Object>) ((EncoderHttpMessageWriter<?>) writer).getEncoder();
+                DataBuffer buffer = encoder.encodeValue(body, DefaultDataBufferFactory.sharedInstance, type, mediaType,
+                    Collections.emptyMap());
+                try {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    return bytes;
+                } finally {
+                    DataBufferUtils.release(buffer);
+                }
+            }
+        }
+        throw new IllegalStateException("No encoder for " + type + " as " + mediaType);
+    }
+
+    private static byte[] gzip(byte[] identity) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(identity.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(identity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    public static final class EncodedBody {
+
+        private final byte[] identity;
+        private final byte[] gzipped;
+
+        private EncodedBody(byte[] identity, byte[] gzipped) {
+            this.identity = identity;
+            this.gzipped = gzipped;
+        }
+
+        /**
+         * Whether a gzipped copy is kept, which makes the response vary by Accept-Encoding.
+         */
+        public boolean isCompressible() {
+            return gzipped != null;
+        }
+
+        public byte[] getBytes(boolean gzip) {
+            return gzip && gzipped != null ? gzipped : identity;
+        }
+
+        private int weight() {
+            return identity.length + (gzipped != null ? gzipped.length : 0);
+        }
+    }
+}
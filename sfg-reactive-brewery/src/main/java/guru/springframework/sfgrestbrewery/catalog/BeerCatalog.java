@@ -0,0 +1,528 @@
+package guru.springframework.sfgrestbrewery.catalog;
+
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * The whole beer catalog in memory, as an immutable snapshot of sorted arrays: every beer and each style's beers by
+ * id, and every beer with a UPC by UPC. Reads take the current snapshot without locking; every write through the
+ * service publishes the next snapshot before the write returns, so a client never reads its own write back stale.
+ * A single write copies only the arrays it changes, all beers, by UPC and one or two styles, and rebuilds no index;
+ * the copies are still linear in the catalog size, a few microseconds per write for the catalogs this is meant for,
+ * so a write-heavy table should leave the catalog disabled. A batch of created beers is merged in one pass. Writers
+ * are serialized.
+ * <p>
+ * Stock is not kept: it moves without going through the service, so reads with inventory stay on the database.
+ * Until the first load completes {@link #isReady()} is false and callers fall back to the database. The catalog is
+ * read again every {@link BeerCatalogProperties#getReloadInterval() reload interval}; writes made while a load is
+ * running, which listeners receive as stored rows, are replayed on top of it, and the rows a reload finds changed
+ * are counted as drift.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(BeerCatalogProperties.class)
+public class BeerCatalog implements BeerChangeListener {
+
+    public static final String SIZE = "beer.catalog.size";
+    public static final String AGE = "beer.catalog.age";
+    public static final String DRIFT = "beer.catalog.drift";
+
+    /**
+     * {@link #first} keeps a heap when the limit is under this share of the list, and sorts a copy otherwise.
+     */
+    private static final int TOP_K_SHARE = 8;
+
+    private static final Beer[] NO_BEERS = new Beer[0];
+    private static final Comparator<Beer> BY_ID = Comparator.comparing(Beer::getId);
+    private static final Comparator<Beer> BY_UPC = Comparator.comparing(Beer::getUpc).thenComparing(Beer::getId);
+
+    private final BeerRepository beerRepository;
+    private final BeerCatalogProperties properties;
+    private final Counter drift;
+
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+    private volatile long loadedAt;
+    private volatile Disposable reloads;
+
+    /**
+     * Writes seen since the running load started, by id, with {@code null} for a deletion; {@code null} when no
+     * load is running. Guarded by {@link #lock}.
+     */
+    private Map<Integer, Beer> sinceLoadStarted;
+
+    public BeerCatalog(BeerRepository beerRepository, BeerCatalogProperties properties, MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.properties = properties;
+        this.drift = meterRegistry.counter(DRIFT);
+        Gauge.builder(SIZE, this, catalog -> catalog.snapshot != null ? catalog.snapshot.beers.length : Double.NaN)
+            .register(meterRegistry);
+        TimeGauge.builder(AGE, this, TimeUnit.NANOSECONDS,
+                catalog -> catalog.snapshot != null ? System.nanoTime() - catalog.loadedAt : Double.NaN)
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        reloads = Flux.interval(Duration.ZERO, properties.getReloadInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> load()
+                .onErrorResume(error -> {
+                    log.error("Loading the beer catalog failed, reads stay on {}", snapshot != null ? "the last snapshot" : "the database", error);
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reloads != null) {
+            reloads.dispose();
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * The beer with the given id, or {@code null}. Beers handed out are shared and must not be modified.
+     */
+    public Beer getById(Integer beerId) {
+        return snapshot.get(beerId);
+    }
+
+    public Beer getByUpc(String upc) {
+        return upc != null ? snapshot.getByUpc(upc) : null;
+    }
+
+    /**
+     * The beers passing the filter, in id order. Without a name this is a view of the snapshot and costs nothing;
+     * a name is matched like {@code LIKE '%name%'} by scanning the style's beers.
+     */
+    public List<Beer> find(BeerFilter filter) {
+        Snapshot current = snapshot;
+        List<Beer> beers = filter.getBeerStyle() != null
+            ? view(current.byStyle.getOrDefault(filter.getBeerStyle(), NO_BEERS))
+            : view(current.beers);
+        if (ObjectUtils.isEmpty(filter.getBeerName())) {
+            return beers;
+        }
+        return beers.stream().filter(filter::matches).collect(Collectors.toList());
+    }
+
+    /**
+     * The first {@code limit} of {@code beers} in the given order, ties by id. When the limit is small next to the
+     * list, as for the first pages of a large catalog, only a heap of the best {@code limit} beers seen so far is
+     * kept, which is O(n log limit) rather than a sort of every beer.
+     */
+    public static List<Beer> first(List<Beer> beers, Sort sort, int limit) {
+        Comparator<Beer> order = comparator(sort);
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        if ((long) limit * TOP_K_SHARE > beers.size()) {
+            List<Beer> sorted = new ArrayList<>(beers);
+            sorted.sort(order);
+            return sorted.subList(0, Math.min(limit, sorted.size()));
+        }
+        PriorityQueue<Beer> best = new PriorityQueue<>(limit + 1, order.reversed());
+        for (Beer beer : beers) {
+            if (best.size() < limit) {
+                best.add(beer);
+            } else if (order.compare(beer, best.peek()) < 0) {
+                best.poll();
+                best.add(beer);
+            }
+        }
+        List<Beer> first = new ArrayList<>(best);
+        first.sort(order);
+        return first;
+    }
+
+    /**
+     * The database's order for the sort: each property with nulls lowest, then the id.
+     */
+    public static Comparator<Beer> comparator(Sort sort) {
+        Comparator<Beer> comparator = null;
+        for (Sort.Order order : BeerSort.withIdTiebreak(sort)) {
+            Comparator<Beer> byProperty = byProperty(order.getProperty());
+            byProperty = order.isAscending() ? byProperty : byProperty.reversed();
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        return comparator;
+    }
+
+    private static Comparator<Beer> byProperty(String property) {
+        switch (property) {
+            case BeerSort.ID:
+                return Comparator.comparing(Beer::getId);
+            case BeerSort.PRICE:
+                return Comparator.comparing(Beer::getPrice, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case BeerSort.NAME:
+                return Comparator.comparing(Beer::getBeerName, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case BeerSort.LAST_MODIFIED:
+                return Comparator.comparing(Beer::getLastModifiedDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default:
+                throw new IllegalArgumentException("Beers cannot be sorted by " + property);
+        }
+    }
+
+    /**
+     * The position of the first beer with an id greater than {@code beerId} in an id-ordered list.
+     */
+    public static int indexAfter(List<Beer> beers, Integer beerId) {
+        int low = 0;
+        int high = beers.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (beers.get(middle).getId() <= beerId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void onCreated(Collection<Beer> beers) {
+        Map<Integer, Beer> changes = new LinkedHashMap<>();
+        beers.forEach(beer -> changes.put(beer.getId(), beer));
+        apply(changes);
+    }
+
+    @Override
+    public void onUpdated(Beer previous, Beer current) {
+        apply(Collections.singletonMap(current.getId(), current));
+    }
+
+    @Override
+    public void onDeleted(Beer beer) {
+        apply(Collections.singletonMap(beer.getId(), null));
+    }
+
+    /**
+     * Reads every beer and publishes them as the new snapshot, with the writes made meanwhile applied on top.
+     */
+    Mono<Integer> load() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            synchronized (lock) {
+                sinceLoadStarted = new HashMap<>();
+            }
+            return beerRepository.findAll()
+                .collectList()
+                .doOnError(error -> {
+                    synchronized (lock) {
+                        sinceLoadStarted = null;
+                    }
+                })
+                .map(rows -> {
+                    Snapshot loaded = publish(rows);
+                    log.info("Loaded {} beers into the catalog in {} ms", loaded.beers.length, (System.nanoTime() - start) / 1_000_000);
+                    return loaded.beers.length;
+                });
+        });
+    }
+
+    private Snapshot publish(List<Beer> rows) {
+        rows.sort(BY_ID);
+        Snapshot loaded = new Snapshot(rows.stream().map(BeerCatalog::stored).toArray(Beer[]::new));
+        synchronized (lock) {
+            Map<Integer, Beer> changes = sinceLoadStarted;
+            sinceLoadStarted = null;
+            loaded = loaded.with(changes);
+            Snapshot previous = snapshot;
+            if (previous != null) {
+                drift.increment(previous.differences(loaded));
+            }
+            loadedAt = System.nanoTime();
+            snapshot = loaded;
+            return loaded;
+        }
+    }
+
+    private void apply(Map<Integer, Beer> changes) {
+        synchronized (lock) {
+            Map<Integer, Beer> resolved = new LinkedHashMap<>();
+            changes.forEach((id, beer) -> {
+                if (id != null) {
+                    resolved.put(id, beer != null ? stored(beer) : null);
+                }
+            });
+            if (sinceLoadStarted != null) {
+                sinceLoadStarted.putAll(resolved);
+            }
+            Snapshot current = snapshot;
+            if (current == null || resolved.isEmpty()) {
+                return;
+            }
+            if (resolved.size() == 1) {
+                Map.Entry<Integer, Beer> change = resolved.entrySet().iterator().next();
+                snapshot = current.with(change.getKey(), change.getValue());
+            } else {
+                snapshot = current.with(resolved);
+            }
+        }
+    }
+
+    /**
+     * A beer as the catalog keeps it: without stock, which moves without going through the service.
+     */
+    private static Beer stored(Beer beer) {
+        return beer.getQuantityOnHand() == null ? beer : beer.toBuilder().quantityOnHand(null).build();
+    }
+
+    private static List<Beer> view(Beer[] beers) {
+        return Collections.unmodifiableList(Arrays.asList(beers));
+    }
+
+    /**
+     * The position of the beer with the id in an id-ordered array, or {@code -(insertion point) - 1}.
+     */
+    private static int position(Beer[] beers, Integer beerId) {
+        int low = 0;
+        int high = beers.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = beers[middle].getId().compareTo(beerId);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * A copy of the sorted array with the beer in its place, replacing the beer equal to it in that order if there
+     * is one.
+     */
+    private static Beer[] put(Beer[] beers, Beer beer, Comparator<Beer> order) {
+        int position = Arrays.binarySearch(beers, beer, order);
+        if (position >= 0) {
+            Beer[] copy = beers.clone();
+            copy[position] = beer;
+            return copy;
+        }
+        int insertion = -(position + 1);
+        Beer[] copy = new Beer[beers.length + 1];
+        System.arraycopy(beers, 0, copy, 0, insertion);
+        copy[insertion] = beer;
+        System.arraycopy(beers, insertion, copy, insertion + 1, beers.length - insertion);
+        return copy;
+    }
+
+    /**
+     * A copy of the sorted array without the beer equal to {@code beer} in that order, or the array itself when it
+     * has none.
+     */
+    private static Beer[] remove(Beer[] beers, Beer beer, Comparator<Beer> order) {
+        int position = Arrays.binarySearch(beers, beer, order);
+        if (position < 0) {
+            return beers;
+        }
+        Beer[] copy = new Beer[beers.length - 1];
+        System.arraycopy(beers, 0, copy, 0, position);
+        System.arraycopy(beers, position + 1, copy, position, beers.length - position - 1);
+        return copy;
+    }
+
+    private static final class Snapshot {
+
+        private final Beer[] beers;
+        private final Map<BeerStyleEnum, Beer[]> byStyle;
+        private final Beer[] byUpc;
+
+        /**
+         * Indexes {@code beers}, which must be ordered by id.
+         */
+        private Snapshot(Beer[] beers) {
+            this.beers = beers;
+            List<Beer> withUpc = new ArrayList<>(beers.length);
+            Map<BeerStyleEnum, List<Beer>> styles = new EnumMap<>(BeerStyleEnum.class);
+            for (Beer beer : beers) {
+                if (beer.getUpc() != null) {
+                    withUpc.add(beer);
+                }
+                if (beer.getBeerStyle() != null) {
+                    styles.computeIfAbsent(beer.getBeerStyle(), style -> new ArrayList<>()).add(beer);
+                }
+            }
+            withUpc.sort(BY_UPC);
+            this.byUpc = withUpc.toArray(NO_BEERS);
+            this.byStyle = new EnumMap<>(BeerStyleEnum.class);
+            styles.forEach((style, styled) -> byStyle.put(style, styled.toArray(NO_BEERS)));
+        }
+
+        private Snapshot(Beer[] beers, Map<BeerStyleEnum, Beer[]> byStyle, Beer[] byUpc) {
+            this.beers = beers;
+            this.byStyle = byStyle;
+            this.byUpc = byUpc;
+        }
+
+        private Beer get(Integer beerId) {
+            int position = position(beers, beerId);
+            return position >= 0 ? beers[position] : null;
+        }
+
+        /**
+         * The lowest-id beer with the UPC, found by binary search.
+         */
+        private Beer getByUpc(String upc) {
+            int low = 0;
+            int high = byUpc.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (byUpc[middle].getUpc().compareTo(upc) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low < byUpc.length && byUpc[low].getUpc().equals(upc) ? byUpc[low] : null;
+        }
+
+        /**
+         * The next snapshot with one beer created, replaced or, when {@code beer} is {@code null}, deleted. Copies
+         * the all-beers array, the UPC array and the arrays of the styles involved, and shares the rest.
+         */
+        private Snapshot with(Integer beerId, Beer beer) {
+            Beer known = get(beerId);
+            if (known == null && beer == null) {
+                return this;
+            }
+            Map<BeerStyleEnum, Beer[]> styles = new EnumMap<>(BeerStyleEnum.class);
+            styles.putAll(byStyle);
+            if (known != null && known.getBeerStyle() != null && (beer == null || beer.getBeerStyle() != known.getBeerStyle())) {
+                styles.computeIfPresent(known.getBeerStyle(), (style, styled) -> remove(styled, known, BY_ID));
+            }
+            if (beer != null && beer.getBeerStyle() != null) {
+                styles.put(beer.getBeerStyle(), put(styles.getOrDefault(beer.getBeerStyle(), NO_BEERS), beer, BY_ID));
+            }
+
+            Beer[] upcs = byUpc;
+            if (known != null && known.getUpc() != null && (beer == null || !known.getUpc().equals(beer.getUpc()))) {
+                upcs = remove(upcs, known, BY_UPC);
+            }
+            if (beer != null && beer.getUpc() != null) {
+                upcs = put(upcs, beer, BY_UPC);
+            }
+            return new Snapshot(beer != null ? put(beers, beer, BY_ID) : remove(beers, known, BY_ID), styles, upcs);
+        }
+
+        /**
+         * The next snapshot: this one with {@code changes} merged in, in one pass over the id order.
+         */
+        private Snapshot with(Map<Integer, Beer> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            Iterator<Map.Entry<Integer, Beer>> pending = new TreeMap<>(changes).entrySet().iterator();
+            Map.Entry<Integer, Beer> change = pending.hasNext() ? pending.next() : null;
+            List<Beer> merged = new ArrayList<>(beers.length + changes.size());
+            for (Beer beer : beers) {
+                while (change != null && change.getKey() < beer.getId()) {
+                    addIfPresent(merged, change.getValue());
+                    change = pending.hasNext() ? pending.next() : null;
+                }
+                if (change != null && change.getKey().equals(beer.getId())) {
+                    addIfPresent(merged, change.getValue());
+                    change = pending.hasNext() ? pending.next() : null;
+                } else {
+                    merged.add(beer);
+                }
+            }
+            while (change != null) {
+                addIfPresent(merged, change.getValue());
+                change = pending.hasNext() ? pending.next() : null;
+            }
+            return new Snapshot(merged.toArray(NO_BEERS));
+        }
+
+        private static void addIfPresent(List<Beer> beers, Beer change) {
+            if (change != null) {
+                beers.add(change);
+            }
+        }
+
+        /**
+         * How many beers are missing from, added to or served differently by {@code other}. Dates are left out, as
+         * the database may hold them at a lower precision than the write that set them.
+         */
+        private int differences(Snapshot other) {
+            int differences = 0;
+            for (Beer beer : beers) {
+                Beer otherBeer = other.get(beer.getId());
+                if (otherBeer == null || !sameContent(beer, otherBeer)) {
+                    differences++;
+                }
+            }
+            for (Beer otherBeer : other.beers) {
+                if (get(otherBeer.getId()) == null) {
+                    differences++;
+                }
+            }
+            return differences;
+        }
+
+        private static boolean sameContent(Beer beer, Beer other) {
+            return Objects.equals(beer.getVersion(), other.getVersion())
+                && Objects.equals(beer.getBeerName(), other.getBeerName())
+                && beer.getBeerStyle() == other.getBeerStyle()
+                && Objects.equals(beer.getUpc(), other.getUpc())
+                && (beer.getPrice() == null ? other.getPrice() == null
+                    : other.getPrice() != null && beer.getPrice().compareTo(other.getPrice()) == 0);
+        }
+    }
+}
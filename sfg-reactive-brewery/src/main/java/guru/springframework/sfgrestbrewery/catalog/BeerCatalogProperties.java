@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.catalog;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.catalog")
+public class BeerCatalogProperties {
+
+    /**
+     * Keep every beer in memory and serve reads without inventory from it instead of the database.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often the whole catalog is read again, to pick up changes that did not go through the service.
+     */
+    private Duration reloadInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,119 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedListModule;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+@Configuration
+public class CodecConfig {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    /**
+     * Lets {@link BeerPagedList} be negotiated as plain JSON or in the compact format. Plain JSON is registered
+     * first so that clients accepting anything keep getting the {@code PageImpl} layout. Runs after Boot's own
+     * Jackson customizer and replaces its codecs, keeping the application's {@link ObjectMapper}.
+     */
+    @Bean
+    @Order(1)
+    CodecCustomizer beerPagedListCodecCustomizer(ObjectMapper objectMapper) {
+        ObjectMapper compactMapper = objectMapper.copy().registerModule(new BeerPagedListModule());
+        Consumer<Map<MimeType, ObjectMapper>> pageMappers = mappers -> {
+            mappers.put(MediaType.APPLICATION_JSON, objectMapper);
+            mappers.put(BeerPagedList.COMPACT_JSON, compactMapper);
+        };
+        return configurer -> {
+            Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper);
+            encoder.registerObjectMappersForType(BeerPagedList.class, pageMappers);
+            Jackson2JsonDecoder decoder = new Jackson2JsonDecoder(objectMapper);
+            decoder.registerObjectMappersForType(BeerPagedList.class, pageMappers);
+            configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+            configurer.defaultCodecs().jackson2JsonDecoder(decoder);
+        };
+    }
+
+    /**
+     * CBOR and Smile codecs configured like the JSON one, for service-to-service calls. Neither format has legacy
+     * readers, so pages always use the compact layout. The binary types are never the default: a client only gets
+     * them by asking for them.
+     */
+    @Bean
+    @Order(1)
+    CodecCustomizer binaryCodecCustomizer(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        ObjectMapper cborMapper = objectMapperBuilder.getObject().factory(new CBORFactory()).build()
+            .registerModule(new BeerPagedListModule());
+        ObjectMapper smileMapper = objectMapperBuilder.getObject().factory(new SmileFactory()).build()
+            .registerModule(new BeerPagedListModule());
+        return configurer -> {
+            configurer.customCodecs().register(new RequestedCborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+        };
+    }
+
+    /**
+     * Custom codecs are consulted before the default ones, so a plain CBOR encoder would win over JSON whenever the
+     * client accepts anything. This one advertises no media types and only encodes once a handler has picked CBOR
+     * as the response content type. It also encodes single values, which {@link Jackson2CborEncoder} rejects when
+     * they come as a {@link Mono}.
+     */
+    private static final class RequestedCborEncoder extends Jackson2CborEncoder {
+
+        private RequestedCborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+            return mimeType != null && super.canEncode(elementType, mimeType);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono) {
+                return Mono.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+
+        @Override
+        public List<MimeType> getEncodableMimeTypes() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<MimeType> getEncodableMimeTypes(ResolvableType elementType) {
+            return Collections.emptyList();
+        }
+    }
+}
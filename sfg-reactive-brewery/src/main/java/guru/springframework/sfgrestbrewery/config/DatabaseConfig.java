@@ -0,0 +1,62 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+
+@Slf4j
+@Configuration
+public class DatabaseConfig {
+
+    @Bean
+    ConnectionFactoryInitializer initializer(@Qualifier("connectionFactory") ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")));
+        return initializer;
+    }
+
+    /**
+     * Binds the pool gauges (acquired, idle, pending, ...), opens the pool's initial connections and times connection
+     * acquisition. Boot only binds the gauges for an unwrapped pool, so they are bound here before the pool is
+     * wrapped. The warm-up runs before anything else uses the pool, so the first requests after a deploy do not pay
+     * for connection setup.
+     */
+    @Bean
+    static BeanPostProcessor connectionPoolInstrumentation(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof ConnectionPool)) {
+                    return bean;
+                }
+                ConnectionPool pool = (ConnectionPool) bean;
+                MeterRegistry registry = meterRegistry.getObject();
+                new ConnectionPoolMetrics(pool, beanName, Tags.empty()).bindTo(registry);
+                warmup(pool);
+                return new TimedConnectionFactory(pool, registry, beanName);
+            }
+        };
+    }
+
+    private static void warmup(ConnectionPool pool) {
+        long start = System.nanoTime();
+        Integer created = pool.warmup().block();
+        log.info("Connection pool warmed up in {} ms: {} connection(s) opened, {} allocated",
+            (System.nanoTime() - start) / 1_000_000, created, pool.getMetrics().map(PoolMetrics::allocatedSize).orElse(-1));
+    }
+}
@@ -0,0 +1,68 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.Closeable;
+
+/**
+ * Times how long callers wait to acquire a connection from the pool, which the pool's own gauges only show as a
+ * pending count. Closing or disposing it closes the pool, so it still shuts down when Spring infers the destroy
+ * method of the bean this replaces.
+ */
+class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionPool>, Closeable, Disposable {
+
+    static final String ACQUIRE = "r2dbc.pool.acquire";
+
+    private final ConnectionPool pool;
+    private final MeterRegistry meterRegistry;
+    private final String name;
+
+    TimedConnectionFactory(ConnectionPool pool, MeterRegistry meterRegistry, String name) {
+        this.pool = pool;
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return pool.create().doFinally(signal -> sample.stop(meterRegistry.timer(ACQUIRE, "name", name,
+                "outcome", signal == SignalType.ON_COMPLETE ? "success" : signal == SignalType.ON_ERROR ? "error" : "cancelled")));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionPool unwrap() {
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+}
@@ -11,14 +11,16 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Beer {
     @Id
     private Integer id;
+    @Version
     private Long version;
     private String beerName;
     private BeerStyleEnum beerStyle;
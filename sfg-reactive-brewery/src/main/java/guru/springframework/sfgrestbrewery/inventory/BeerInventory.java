@@ -0,0 +1,288 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Write-behind inventory counters. The first reservation of a beer loads its {@code quantity_on_hand}; from then on
+ * reservations and releases are a compare-and-set on an in-memory counter, so concurrent buyers of one beer never
+ * queue on its row. The net change per beer is written back as {@code quantity_on_hand + delta} every
+ * {@link BeerInventoryProperties#getFlushInterval() flush interval}, in batched updates.
+ * <p>
+ * The table always holds the last flushed value, which is what a restart starts from; changes made within the last
+ * flush interval before a crash are lost. Once loaded, a counter is the source of truth for its beer until it has
+ * been written back and left unchanged for the {@link BeerInventoryProperties#getIdleTimeout() idle timeout}; then a
+ * flush drops it, so only beers that are being bought stay in memory.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(BeerInventoryProperties.class)
+public class BeerInventory implements BeerChangeListener {
+
+    private static final String SELECT = "SELECT quantity_on_hand FROM beer WHERE id = :id";
+    private static final String UPDATE = "UPDATE beer SET quantity_on_hand = COALESCE(quantity_on_hand, 0) + $1 WHERE id = $2";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final BeerInventoryProperties properties;
+
+    private final ConcurrentMap<Integer, CompletableFuture<Counter>> counters = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Beers whose change a flush has taken but not yet written or put back; the table is behind their counters.
+     */
+    private final Set<Integer> flushing = ConcurrentHashMap.newKeySet();
+    private volatile Disposable flushes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        flushes = Flux.interval(properties.getFlushInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> flush())
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushes != null) {
+            flushes.dispose();
+        }
+        Integer flushed = flush().block(properties.getFlushInterval().plusSeconds(5));
+        log.info("Flushed inventory of {} beer(s) on shutdown", flushed);
+    }
+
+    /**
+     * Takes {@code quantity} off the beer's stock and emits what is left, or fails with
+     * {@link InsufficientInventoryException} without changing anything.
+     */
+    public Mono<Long> reserve(Integer beerId, long quantity) {
+        return change(beerId, counter -> {
+            long onHand;
+            do {
+                onHand = counter.onHand.get();
+                if (onHand < quantity) {
+                    throw new InsufficientInventoryException(beerId, quantity, onHand);
+                }
+            } while (!counter.onHand.compareAndSet(onHand, onHand - quantity));
+            changed(beerId, counter, -quantity);
+            return onHand - quantity;
+        });
+    }
+
+    /**
+     * Puts {@code quantity} back on the beer's stock and emits the new amount.
+     */
+    public Mono<Long> release(Integer beerId, long quantity) {
+        return change(beerId, counter -> {
+            long onHand = counter.onHand.addAndGet(quantity);
+            changed(beerId, counter, quantity);
+            return onHand;
+        });
+    }
+
+    /**
+     * The live amount on hand if the beer's counter is loaded, otherwise {@code null} and the table is current.
+     */
+    public Long onHand(Integer beerId) {
+        Counter counter = loaded(beerId);
+        return counter != null ? counter.onHand.get() : null;
+    }
+
+    /**
+     * Writes the pending change of every dirty counter and emits the number of beers written. A batch that fails
+     * to write is put back for the next flush instead of failing the flush. Idle counters are dropped first.
+     */
+    public Mono<Integer> flush() {
+        evictIdle(properties.getIdleTimeout());
+        Map<Integer, Long> deltas = new HashMap<>();
+        for (Integer beerId : dirty) {
+            flushing.add(beerId);
+            dirty.remove(beerId);
+            Counter counter = loaded(beerId);
+            long delta = counter != null ? counter.unflushed.getAndSet(0) : 0;
+            if (delta != 0) {
+                deltas.put(beerId, delta);
+            } else {
+                flushing.remove(beerId);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        List<Map.Entry<Integer, Long>> entries = new ArrayList<>(deltas.entrySet());
+        return Flux.range(0, (entries.size() + properties.getFlushBatchSize() - 1) / properties.getFlushBatchSize())
+            .map(batch -> entries.subList(batch * properties.getFlushBatchSize(),
+                Math.min((batch + 1) * properties.getFlushBatchSize(), entries.size())))
+            .concatMap(batch -> write(batch)
+                .thenReturn(batch.size())
+                .onErrorResume(error -> {
+                    log.warn("Flushing inventory of {} beer(s) failed, keeping it for the next flush", batch.size(), error);
+                    batch.forEach(entry -> restore(entry.getKey(), entry.getValue()));
+                    return Mono.just(0);
+                })
+                .doFinally(signal -> batch.forEach(entry -> flushing.remove(entry.getKey()))))
+            .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Drops the counters that are written back and have not changed for {@code idleFor}, and returns how many.
+     */
+    int evictIdle(Duration idleFor) {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<Integer, CompletableFuture<Counter>> entry : counters.entrySet()) {
+            Integer beerId = entry.getKey();
+            Counter counter = loaded(beerId);
+            if (counter == null || now - counter.lastChanged < idleFor.toNanos() || dirty.contains(beerId) || flushing.contains(beerId)) {
+                continue;
+            }
+            // a change in progress holds the read lock; the counter stays for now rather than waiting for it
+            long stamp = counter.changes.tryWriteLock();
+            if (stamp == 0) {
+                continue;
+            }
+            try {
+                if (counter.unflushed.get() == 0 && !dirty.contains(beerId) && !flushing.contains(beerId)) {
+                    counter.evicted = true;
+                    counters.remove(beerId, entry.getValue());
+                    evicted++;
+                }
+            } finally {
+                counter.changes.unlockWrite(stamp);
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Dropped {} idle inventory counter(s)", evicted);
+        }
+        return evicted;
+    }
+
+    @Override
+    public void onDeleted(Beer beer) {
+        counters.remove(beer.getId());
+        dirty.remove(beer.getId());
+    }
+
+    private Mono<Void> write(List<Map.Entry<Integer, Long>> batch) {
+        Flux<Integer> updated = databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(UPDATE);
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind(0, batch.get(i).getValue()).bind(1, batch.get(i).getKey());
+            }
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+        });
+        return transactionalOperator.transactional(updated).then();
+    }
+
+    /**
+     * Applies {@code change} to the beer's counter, loading it first if needed. A change never lands on a counter
+     * that has been dropped: it holds the counter's read lock and starts over on a fresh counter if it finds it
+     * evicted.
+     */
+    private Mono<Long> change(Integer beerId, Function<Counter, Long> change) {
+        return counter(beerId).flatMap(counter -> {
+            long stamp = counter.changes.readLock();
+            try {
+                return counter.evicted ? change(beerId, change) : Mono.just(change.apply(counter));
+            } finally {
+                counter.changes.unlockRead(stamp);
+            }
+        });
+    }
+
+    private Mono<Counter> counter(Integer beerId) {
+        return Mono.defer(() -> {
+            CompletableFuture<Counter> future = counters.computeIfAbsent(beerId, id -> load(id).toFuture());
+            future.whenComplete((counter, error) -> {
+                if (counter == null) {
+                    counters.remove(beerId, future);
+                }
+            });
+            return Mono.fromFuture(future);
+        }).switchIfEmpty(Mono.error(NotFoundException::new));
+    }
+
+    private Mono<Counter> load(Integer beerId) {
+        return databaseClient.sql(SELECT)
+            .bind("id", beerId)
+            .map((row, metadata) -> {
+                Integer quantityOnHand = row.get("quantity_on_hand", Integer.class);
+                return new Counter(quantityOnHand != null ? quantityOnHand : 0);
+            })
+            .one();
+    }
+
+    private void changed(Integer beerId, Counter counter, long delta) {
+        counter.unflushed.addAndGet(delta);
+        counter.lastChanged = System.nanoTime();
+        dirty.add(beerId);
+    }
+
+    private void restore(Integer beerId, long delta) {
+        Counter counter = loaded(beerId);
+        if (counter != null) {
+            changed(beerId, counter, delta);
+        }
+    }
+
+    private Counter loaded(Integer beerId) {
+        CompletableFuture<Counter> future = counters.get(beerId);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    private static final class Counter {
+        private final AtomicLong onHand;
+        private final AtomicLong unflushed = new AtomicLong();
+        private final StampedLock changes = new StampedLock();
+        private volatile long lastChanged = System.nanoTime();
+
+        /**
+         * Set under the write lock of {@link #changes} when the counter is dropped.
+         */
+        private boolean evicted;
+
+        private Counter(long onHand) {
+            this.onHand = new AtomicLong(onHand);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.inventory")
+public class BeerInventoryProperties {
+
+    /**
+     * Durability window: how long a reservation may live only in memory before it is written to the table.
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    private int flushBatchSize = 500;
+
+    /**
+     * How long a counter may go without a change before a flush drops it once it is written back; the next
+     * reservation of the beer loads it again.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(1);
+}
@@ -0,0 +1,8 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+public class InsufficientInventoryException extends RuntimeException {
+
+    public InsufficientInventoryException(Integer beerId, long requested, long onHand) {
+        super("Cannot reserve " + requested + " of beer " + beerId + ", " + onHand + " on hand");
+    }
+}
@@ -0,0 +1,51 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.function.Supplier;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers for the work done behind a request, so a slow route can be split into time spent in the database and
+ * time spent mapping rows. Query timers run from subscription to termination and are tagged with the operation and
+ * its outcome ({@code success}, {@code error} or {@code cancelled}).
+ */
+@Component
+@RequiredArgsConstructor
+public class BeerMetrics {
+
+    public static final String DB_QUERY = "beer.db.query";
+    public static final String MAPPING = "beer.mapping";
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> Mono<T> query(String operation, Mono<T> query) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return query.doFinally(signal -> sample.stop(queryTimer(operation, signal)));
+        });
+    }
+
+    public <T> Flux<T> query(String operation, Flux<T> query) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return query.doFinally(signal -> sample.stop(queryTimer(operation, signal)));
+        });
+    }
+
+    public <T> T mapping(String type, Supplier<T> mapping) {
+        return meterRegistry.timer(MAPPING, "type", type).record(mapping);
+    }
+
+    private Timer queryTimer(String operation, SignalType signal) {
+        String outcome = signal == SignalType.ON_ERROR ? "error" : signal == SignalType.CANCEL ? "cancelled" : "success";
+        return meterRegistry.timer(DB_QUERY, "operation", operation, "outcome", outcome);
+    }
+}
@@ -0,0 +1,90 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Inserts beers with one multi-row {@code INSERT} per call instead of one statement per beer.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BeerBatchRepository {
+
+    private static final String INSERT = "INSERT INTO beer (beer_name, beer_style, upc, version, quantity_on_hand, price, "
+        + "created_date, last_modified_date) VALUES ";
+    private static final int COLUMNS = 8;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Inserts all beers atomically and emits them, in input order, with their generated ids set.
+     */
+    public Flux<Beer> insertAll(List<Beer> beers) {
+        if (beers.isEmpty()) {
+            return Flux.empty();
+        }
+        Flux<Beer> inserted = databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(insertSql(beers.size())).returnGeneratedValues("id");
+            for (int i = 0; i < beers.size(); i++) {
+                Beer beer = beers.get(i);
+                if (beer.getVersion() == null) {
+                    beer.setVersion(0L);
+                }
+                bind(statement, i * COLUMNS, beer);
+            }
+            return Flux.from(statement.execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get("id", Integer.class)))
+                .index()
+                .map(idAtIndex -> {
+                    Beer beer = beers.get(idAtIndex.getT1().intValue());
+                    beer.setId(idAtIndex.getT2());
+                    return beer;
+                });
+        });
+        return transactionalOperator.transactional(inserted);
+    }
+
+    private static String insertSql(int rows) {
+        StringJoiner values = new StringJoiner(", ", INSERT, "");
+        for (int row = 0; row < rows; row++) {
+            StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+            for (int column = 1; column <= COLUMNS; column++) {
+                placeholders.add("$" + (row * COLUMNS + column));
+            }
+            values.add(placeholders.toString());
+        }
+        return values.toString();
+    }
+
+    private static void bind(Statement statement, int offset, Beer beer) {
+        bind(statement, offset, beer.getBeerName(), String.class);
+        bind(statement, offset + 1, beer.getBeerStyle() != null ? beer.getBeerStyle().name() : null, String.class);
+        bind(statement, offset + 2, beer.getUpc(), String.class);
+        bind(statement, offset + 3, beer.getVersion(), Long.class);
+        bind(statement, offset + 4, beer.getQuantityOnHand(), Integer.class);
+        bind(statement, offset + 5, beer.getPrice(), BigDecimal.class);
+        bind(statement, offset + 6, beer.getCreatedDate(), LocalDateTime.class);
+        bind(statement, offset + 7, beer.getLastModifiedDate(), LocalDateTime.class);
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.metrics.BeerMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads beers by id in batches, DataLoader style: lookups arriving within one
+ * {@link BeerLookupProperties#getBatchWindow() batch window} are answered by a single {@code WHERE id IN (...)}
+ * query, and each caller gets its own row back, or nothing for an unknown id. Fan-out callers that fetch a list of
+ * beers one by one then cost one round trip per window instead of one per beer.
+ * <p>
+ * A batch is read even if every caller waiting on it has cancelled; the rows are few and the query is already
+ * shared.
+ */
+@Component
+@EnableConfigurationProperties(BeerLookupProperties.class)
+public class BeerIdBatcher {
+
+    public static final String BATCH_SIZE = "beer.lookup.batch.size";
+
+    private final BeerRepository beerRepository;
+    private final BeerMetrics beerMetrics;
+    private final BeerLookupProperties properties;
+    private final DistributionSummary batchSizes;
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    private final Object lock = new Object();
+    private Map<Integer, Sinks.One<Beer>> pending = new HashMap<>();
+
+    public BeerIdBatcher(BeerRepository beerRepository, BeerMetrics beerMetrics, BeerLookupProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.beerRepository = beerRepository;
+        this.beerMetrics = beerMetrics;
+        this.properties = properties;
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE).register(meterRegistry);
+    }
+
+    public Mono<Beer> findById(Integer beerId) {
+        if (properties.getBatchWindow().isZero() || beerId == null) {
+            return beerMetrics.query("findById", beerRepository.findById(beerId));
+        }
+        return Mono.defer(() -> enqueue(beerId).asMono());
+    }
+
+    private Sinks.One<Beer> enqueue(Integer beerId) {
+        Sinks.One<Beer> sink;
+        Map<Integer, Sinks.One<Beer>> full = null;
+        synchronized (lock) {
+            boolean opensWindow = pending.isEmpty();
+            sink = pending.computeIfAbsent(beerId, id -> Sinks.one());
+            if (pending.size() >= properties.getMaxBatchSize()) {
+                full = take();
+            } else if (opensWindow) {
+                // a window closing after its batch already filled up just flushes the next one early
+                scheduler.schedule(this::flush, properties.getBatchWindow().toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            load(full);
+        }
+        return sink;
+    }
+
+    private void flush() {
+        Map<Integer, Sinks.One<Beer>> batch;
+        synchronized (lock) {
+            batch = take();
+        }
+        if (!batch.isEmpty()) {
+            load(batch);
+        }
+    }
+
+    private Map<Integer, Sinks.One<Beer>> take() {
+        Map<Integer, Sinks.One<Beer>> batch = pending;
+        pending = new HashMap<>();
+        return batch;
+    }
+
+    private void load(Map<Integer, Sinks.One<Beer>> batch) {
+        batchSizes.record(batch.size());
+        beerMetrics.query("findAllById", beerRepository.findAllById(new ArrayList<>(batch.keySet())).collectMap(Beer::getId))
+            .subscribe(beers -> batch.forEach((beerId, sink) -> {
+                Beer beer = beers.get(beerId);
+                if (beer != null) {
+                    sink.tryEmitValue(beer);
+                } else {
+                    sink.tryEmitEmpty();
+                }
+            }), error -> batch.values().forEach(sink -> sink.tryEmitError(error)));
+    }
+}
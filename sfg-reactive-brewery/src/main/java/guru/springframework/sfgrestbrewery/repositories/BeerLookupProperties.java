@@ -0,0 +1,22 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.lookup")
+public class BeerLookupProperties {
+
+    /**
+     * How long a lookup by id waits for others to share its query. Zero reads every beer on its own.
+     */
+    private Duration batchWindow = Duration.ofNanos(500_000);
+
+    /**
+     * Ids per {@code IN} query; a window that fills up is read straight away.
+     */
+    private int maxBatchSize = 100;
+}
@@ -0,0 +1,260 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trigram index over beer names. A substring query is resolved to the ids whose names contain it by intersecting
+ * the posting sets of the query's trigrams, so the work depends on how selective the query is, not on the size of
+ * the catalog. Matches are verified against the stored name, so results are exactly those of
+ * {@code beer_name LIKE '%query%'}.
+ * <p>
+ * Names are lower-cased and padded with boundary marks before indexing, which puts every one- and two-character
+ * substring inside some trigram; short queries are answered from the (bounded) set of trigrams containing them.
+ * The index is loaded once the application is ready; until then {@link #isReady()} is false and callers fall back
+ * to the database. Writes seen while the load runs are held back and replayed on top of it, so a row read before a
+ * concurrent rename or delete cannot bring the old name back.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(BeerSearchProperties.class)
+public class BeerNameIndex implements BeerChangeListener {
+
+    private static final int N = 3;
+    private static final char START = '\u0002';
+    private static final char END = '\u0003';
+
+    private final DatabaseClient databaseClient;
+    private final BeerSearchProperties properties;
+
+    private final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<Integer>> postings = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private volatile boolean ready;
+
+    /**
+     * Writes seen before the index was ready, by id, with {@code null} for a deletion. Guarded by {@link #lock}.
+     */
+    private Map<Integer, Entry> pending = new LinkedHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        databaseClient.sql("SELECT id, beer_name, beer_style FROM beer")
+            .map((row, metadata) -> {
+                String style = row.get("beer_style", String.class);
+                return new Entry(row.get("id", Integer.class), row.get("beer_name", String.class),
+                    style != null ? BeerStyleEnum.valueOf(style) : null);
+            })
+            .all()
+            .collectList()
+            .subscribe(entries -> {
+                load(entries);
+                log.info("Indexed {} beer names in {} ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+            }, error -> log.error("Loading the beer name index failed, searches stay on the database", error));
+    }
+
+    void load(List<Entry> entries) {
+        synchronized (lock) {
+            entries.forEach(this::add);
+            pending.forEach(this::apply);
+            pending = null;
+            ready = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids of the beers whose name contains {@code query} (case-sensitive, like SQL {@code LIKE}) and whose style
+     * is {@code beerStyle} when one is given, ordered by id or, when {@code rank} is set, best match first.
+     */
+    public List<Integer> search(String query, BeerStyleEnum beerStyle, boolean rank) {
+        List<Entry> matches = new ArrayList<>();
+        for (Integer id : candidates(query.toLowerCase(Locale.ROOT))) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.matches(query, beerStyle)) {
+                matches.add(entry);
+            }
+        }
+        if (rank) {
+            matches.sort(Comparator.comparingInt((Entry entry) -> entry.score(query))
+                .thenComparingInt(entry -> entry.getBeerName().length())
+                .thenComparing(Entry::getId));
+        } else if (query.length() < N) {
+            matches.sort(Comparator.comparing(Entry::getId));
+        }
+        return matches.stream().map(Entry::getId).collect(Collectors.toList());
+    }
+
+    @Override
+    public void onCreated(Collection<Beer> beers) {
+        synchronized (lock) {
+            beers.forEach(beer -> write(beer.getId(), Entry.of(beer)));
+        }
+    }
+
+    @Override
+    public void onUpdated(Beer previous, Beer current) {
+        synchronized (lock) {
+            write(current.getId(), Entry.of(current));
+        }
+    }
+
+    @Override
+    public void onDeleted(Beer beer) {
+        synchronized (lock) {
+            write(beer.getId(), null);
+        }
+    }
+
+    private void write(Integer id, Entry entry) {
+        if (id == null || !properties.isEnabled()) {
+            return;
+        }
+        if (pending != null) {
+            pending.put(id, entry);
+        } else {
+            apply(id, entry);
+        }
+    }
+
+    /**
+     * Replaces whatever is indexed for the id, the old state whatever the caller knows about it, with the entry.
+     */
+    private void apply(Integer id, Entry entry) {
+        remove(id);
+        if (entry != null) {
+            add(entry);
+        }
+    }
+
+    private Collection<Integer> candidates(String query) {
+        if (query.length() < N) {
+            Set<Integer> union = new HashSet<>();
+            postings.forEach((gram, ids) -> {
+                if (gram.contains(query)) {
+                    union.addAll(ids);
+                }
+            });
+            return union;
+        }
+
+        List<NavigableSet<Integer>> sets = new ArrayList<>();
+        for (String gram : grams(query)) {
+            NavigableSet<Integer> ids = postings.get(gram);
+            if (ids == null) {
+                return new ArrayList<>();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        List<Integer> intersection = new ArrayList<>();
+        for (Integer id : sets.get(0)) {
+            if (sets.stream().skip(1).allMatch(ids -> ids.contains(id))) {
+                intersection.add(id);
+            }
+        }
+        return intersection;
+    }
+
+    private void add(Entry entry) {
+        if (entry.getId() == null || entry.getBeerName() == null) {
+            return;
+        }
+        entries.put(entry.getId(), entry);
+        for (String gram : grams(padded(entry.getBeerName()))) {
+            postings.compute(gram, (key, ids) -> {
+                NavigableSet<Integer> postingIds = ids != null ? ids : new ConcurrentSkipListSet<>();
+                postingIds.add(entry.getId());
+                return postingIds;
+            });
+        }
+    }
+
+    private void remove(Integer id) {
+        Entry entry = entries.remove(id);
+        if (entry == null || entry.getBeerName() == null) {
+            return;
+        }
+        for (String gram : grams(padded(entry.getBeerName()))) {
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(entry.getId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static String padded(String beerName) {
+        return START + beerName.toLowerCase(Locale.ROOT) + END;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + N <= text.length(); i++) {
+            grams.add(text.substring(i, i + N));
+        }
+        return grams;
+    }
+
+    @Value
+    static class Entry {
+        Integer id;
+        String beerName;
+        BeerStyleEnum beerStyle;
+
+        static Entry of(Beer beer) {
+            return new Entry(beer.getId(), beer.getBeerName(), beer.getBeerStyle());
+        }
+
+        boolean matches(String query, BeerStyleEnum style) {
+            return beerName.contains(query) && (style == null || style == beerStyle);
+        }
+
+        /**
+         * Lower is better: exact name, then prefix, then start of a word, then anywhere.
+         */
+        int score(String query) {
+            if (beerName.equals(query)) {
+                return 0;
+            }
+            int position = beerName.indexOf(query);
+            if (position == 0) {
+                return 1;
+            }
+            return Character.isLetterOrDigit(beerName.charAt(position - 1)) ? 3 : 2;
+        }
+    }
+}
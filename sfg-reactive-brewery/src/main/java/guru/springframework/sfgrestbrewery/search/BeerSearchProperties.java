@@ -0,0 +1,20 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.search")
+public class BeerSearchProperties {
+
+    /**
+     * Serve beerName searches from the in-memory n-gram index instead of a LIKE scan.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Serve beerStyle pages from the in-memory style index instead of a table scan.
+     */
+    private boolean styleIndexEnabled = true;
+}
@@ -0,0 +1,317 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Columnar index of beers by style. Each style keeps its ids in ascending order with their prices alongside, and
+ * the same ids ordered by price, as primitive arrays; a style-filtered page in id or price order is a binary search
+ * and a slice of one of them, without touching the table.
+ * <p>
+ * A style's columns are replaced as a whole on every write, so readers take them without locking and always see a
+ * consistent pair; a write copies only the columns of the styles it touches. Prices are compared at four decimal
+ * places, and beers without a price sort lowest, as the database sorts nulls. The index is loaded once the
+ * application is ready; writes made before it is are replayed on top of the load.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(BeerSearchProperties.class)
+public class BeerStyleIndex implements BeerChangeListener {
+
+    private static final int PRICE_SCALE = 4;
+
+    private final DatabaseClient databaseClient;
+    private final BeerSearchProperties properties;
+
+    private final Map<BeerStyleEnum, AtomicReference<Columns>> columns = new EnumMap<>(BeerStyleEnum.class);
+    private final Object lock = new Object();
+    private volatile boolean ready;
+
+    /**
+     * Writes seen before the index was ready, by id, with {@code null} for a deletion. Guarded by {@link #lock}.
+     */
+    private Map<Integer, Entry> pending = new LinkedHashMap<>();
+
+    public BeerStyleIndex(DatabaseClient databaseClient, BeerSearchProperties properties) {
+        this.databaseClient = databaseClient;
+        this.properties = properties;
+        for (BeerStyleEnum style : BeerStyleEnum.values()) {
+            columns.put(style, new AtomicReference<>(Columns.EMPTY));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.isStyleIndexEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        databaseClient.sql("SELECT id, beer_style, price FROM beer")
+            .map((row, metadata) -> {
+                String style = row.get("beer_style", String.class);
+                return new Entry(row.get("id", Integer.class), style != null ? BeerStyleEnum.valueOf(style) : null,
+                    row.get("price", BigDecimal.class));
+            })
+            .all()
+            .collectList()
+            .subscribe(entries -> {
+                load(entries);
+                log.info("Indexed {} beers by style in {} ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+            }, error -> log.error("Loading the beer style index failed, style pages stay on the database", error));
+    }
+
+    void load(List<Entry> entries) {
+        Map<BeerStyleEnum, List<Entry>> byStyle = new EnumMap<>(BeerStyleEnum.class);
+        for (Entry entry : entries) {
+            if (entry.getBeerStyle() != null) {
+                byStyle.computeIfAbsent(entry.getBeerStyle(), style -> new ArrayList<>()).add(entry);
+            }
+        }
+        synchronized (lock) {
+            columns.forEach((style, styleColumns) -> styleColumns.set(Columns.of(byStyle.getOrDefault(style, List.of()))));
+            pending.forEach(this::apply);
+            pending = null;
+            ready = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Up to {@code limit} ids of the style's beers, in id order or, when {@code priceDirection} is given, by price
+     * and then id in that direction. An id-ordered slice starts after {@code afterId} when one is given and at
+     * {@code offset} otherwise.
+     */
+    public Slice slice(BeerStyleEnum style, Sort.Direction priceDirection, Integer afterId, long offset, int limit) {
+        Columns styleColumns = columns.get(style).get();
+        int total = styleColumns.ids.length;
+        int from = priceDirection == null && afterId != null
+            ? positionAfter(styleColumns.ids, afterId)
+            : (int) Math.min(offset, total);
+        int to = (int) Math.min((long) from + limit, total);
+        Integer[] ids = new Integer[to - from];
+        for (int i = 0; i < ids.length; i++) {
+            int position = from + i;
+            ids[i] = priceDirection == null ? styleColumns.ids[position]
+                : priceDirection.isAscending() ? styleColumns.idsByPrice[position]
+                : styleColumns.idsByPrice[total - 1 - position];
+        }
+        return new Slice(Arrays.asList(ids), total);
+    }
+
+    @Override
+    public void onCreated(Collection<Beer> beers) {
+        synchronized (lock) {
+            beers.forEach(beer -> write(beer.getId(), Entry.of(beer)));
+        }
+    }
+
+    @Override
+    public void onUpdated(Beer previous, Beer current) {
+        synchronized (lock) {
+            write(current.getId(), Entry.of(current));
+        }
+    }
+
+    @Override
+    public void onDeleted(Beer beer) {
+        synchronized (lock) {
+            write(beer.getId(), null);
+        }
+    }
+
+    private void write(Integer id, Entry entry) {
+        if (id == null) {
+            return;
+        }
+        if (pending != null) {
+            pending.put(id, entry);
+        } else {
+            apply(id, entry);
+        }
+    }
+
+    /**
+     * Removes the id from whichever style holds it, as an update does not say what the style was, then adds the
+     * entry. Idempotent, so a write the load already saw can be replayed.
+     */
+    private void apply(Integer id, Entry entry) {
+        for (AtomicReference<Columns> styleColumns : columns.values()) {
+            Columns current = styleColumns.get();
+            Columns without = current.without(id);
+            if (without != current) {
+                styleColumns.set(without);
+            }
+        }
+        if (entry != null && entry.getBeerStyle() != null) {
+            AtomicReference<Columns> styleColumns = columns.get(entry.getBeerStyle());
+            styleColumns.set(styleColumns.get().with(id, priceKey(entry.getPrice())));
+        }
+    }
+
+    private static int positionAfter(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        return position >= 0 ? position + 1 : -(position + 1);
+    }
+
+    private static long priceKey(BigDecimal price) {
+        return price != null ? price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue() : Long.MIN_VALUE;
+    }
+
+    @Value
+    public static class Slice {
+        List<Integer> ids;
+        int total;
+    }
+
+    @Value
+    static class Entry {
+        Integer id;
+        BeerStyleEnum beerStyle;
+        BigDecimal price;
+
+        static Entry of(Beer beer) {
+            return new Entry(beer.getId(), beer.getBeerStyle(), beer.getPrice());
+        }
+    }
+
+    /**
+     * One style's beers: {@code ids} ascending with {@code prices} alongside, and {@code idsByPrice} ascending by
+     * price and then id with {@code sortedPrices} alongside. Never modified once built.
+     */
+    private static final class Columns {
+
+        static final Columns EMPTY = new Columns(new int[0], new long[0], new int[0], new long[0]);
+
+        private final int[] ids;
+        private final long[] prices;
+        private final int[] idsByPrice;
+        private final long[] sortedPrices;
+
+        private Columns(int[] ids, long[] prices, int[] idsByPrice, long[] sortedPrices) {
+            this.ids = ids;
+            this.prices = prices;
+            this.idsByPrice = idsByPrice;
+            this.sortedPrices = sortedPrices;
+        }
+
+        static Columns of(List<Entry> entries) {
+            int size = entries.size();
+            int[] ids = new int[size];
+            long[] prices = new long[size];
+            int[] idsByPrice = new int[size];
+            long[] sortedPrices = new long[size];
+            List<Entry> sorted = new ArrayList<>(entries);
+            sorted.sort(Comparator.comparing(Entry::getId));
+            for (int i = 0; i < size; i++) {
+                ids[i] = sorted.get(i).getId();
+                prices[i] = priceKey(sorted.get(i).getPrice());
+            }
+            Integer[] byPrice = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byPrice[i] = i;
+            }
+            Arrays.sort(byPrice, Comparator.comparingLong((Integer i) -> prices[i]).thenComparingInt(i -> ids[i]));
+            for (int i = 0; i < size; i++) {
+                idsByPrice[i] = ids[byPrice[i]];
+                sortedPrices[i] = prices[byPrice[i]];
+            }
+            return new Columns(ids, prices, idsByPrice, sortedPrices);
+        }
+
+        Columns with(int id, long price) {
+            int position = -(Arrays.binarySearch(ids, id) + 1);
+            int pricePosition = pricePosition(price, id);
+            return new Columns(insert(ids, position, id), insert(prices, position, price),
+                insert(idsByPrice, pricePosition, id), insert(sortedPrices, pricePosition, price));
+        }
+
+        /**
+         * These columns without the id, or these very columns when they do not hold it.
+         */
+        Columns without(int id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position < 0) {
+                return this;
+            }
+            int pricePosition = pricePosition(prices[position], id);
+            return new Columns(remove(ids, position), remove(prices, position),
+                remove(idsByPrice, pricePosition), remove(sortedPrices, pricePosition));
+        }
+
+        /**
+         * Where (price, id) is or would go in the price order.
+         */
+        private int pricePosition(long price, int id) {
+            int low = 0;
+            int high = idsByPrice.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = sortedPrices[middle] != price
+                    ? Long.compare(sortedPrices[middle], price)
+                    : Integer.compare(idsByPrice[middle], id);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static int[] insert(int[] values, int position, int value) {
+            int[] inserted = new int[values.length + 1];
+            System.arraycopy(values, 0, inserted, 0, position);
+            inserted[position] = value;
+            System.arraycopy(values, position, inserted, position + 1, values.length - position);
+            return inserted;
+        }
+
+        private static long[] insert(long[] values, int position, long value) {
+            long[] inserted = new long[values.length + 1];
+            System.arraycopy(values, 0, inserted, 0, position);
+            inserted[position] = value;
+            System.arraycopy(values, position, inserted, position + 1, values.length - position);
+            return inserted;
+        }
+
+        private static int[] remove(int[] values, int position) {
+            int[] removed = new int[values.length - 1];
+            System.arraycopy(values, 0, removed, 0, position);
+            System.arraycopy(values, position + 1, removed, position, values.length - position - 1);
+            return removed;
+        }
+
+        private static long[] remove(long[] values, int position) {
+            long[] removed = new long[values.length - 1];
+            System.arraycopy(values, 0, removed, 0, position);
+            System.arraycopy(values, position + 1, removed, position, values.length - position - 1);
+            return removed;
+        }
+    }
+}
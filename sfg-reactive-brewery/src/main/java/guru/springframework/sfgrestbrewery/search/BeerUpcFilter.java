@@ -0,0 +1,262 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.services.BeerChangeListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bloom filter over every known UPC, so a lookup of a UPC we do not carry is answered without a query. A negative
+ * answer is certain; a positive one is checked against the database, and when the database has nothing it is
+ * counted as a false positive.
+ * <p>
+ * New UPCs are added as they are written. A Bloom filter cannot forget, so deletions and updates that change a
+ * beer's UPC schedule a rebuild from the table after {@link BeerUpcFilterProperties#getRebuildDelay() a delay}, as
+ * does outgrowing the capacity the filter was sized for; an old UPC stays a false positive until then.
+ * Rebuilds scheduled within one delay run once. UPCs written while a rebuild reads the table are added to the
+ * rebuilt filter before it is swapped in. Until the first build every UPC may be present.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(BeerUpcFilterProperties.class)
+public class BeerUpcFilter implements BeerChangeListener {
+
+    public static final String LOOKUPS = "beer.upc.filter";
+    public static final String EXPECTED_FALSE_POSITIVE_RATE = "beer.upc.filter.expected.false.positive.rate";
+
+    private final DatabaseClient databaseClient;
+    private final BeerUpcFilterProperties properties;
+    private final Counter absent;
+    private final Counter present;
+    private final Counter falsePositives;
+
+    private final Object lock = new Object();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile Bloom bloom;
+
+    /**
+     * UPCs written since each running rebuild started reading the table. Guarded by {@link #lock}.
+     */
+    private final List<List<String>> recorders = new ArrayList<>();
+
+    public BeerUpcFilter(DatabaseClient databaseClient, BeerUpcFilterProperties properties, MeterRegistry meterRegistry) {
+        this.databaseClient = databaseClient;
+        this.properties = properties;
+        this.absent = meterRegistry.counter(LOOKUPS, "result", "absent");
+        this.present = meterRegistry.counter(LOOKUPS, "result", "present");
+        this.falsePositives = meterRegistry.counter(LOOKUPS, "result", "false_positive");
+        Gauge.builder(EXPECTED_FALSE_POSITIVE_RATE, this,
+                filter -> filter.bloom != null ? filter.bloom.expectedFalsePositiveRate() : Double.NaN)
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (properties.isEnabled()) {
+            rebuild().subscribe(count -> { }, error -> log.error("Building the UPC filter failed, UPC lookups stay on the database", error));
+        }
+    }
+
+    /**
+     * False only when no beer has ever had the UPC; counted as {@code absent} or {@code present} once the filter is
+     * built.
+     */
+    public boolean mightContain(String upc) {
+        Bloom current = bloom;
+        if (current == null || upc == null) {
+            return true;
+        }
+        boolean mightContain = current.mightContain(upc);
+        (mightContain ? present : absent).increment();
+        return mightContain;
+    }
+
+    /**
+     * Records that a UPC the filter let through was not found.
+     */
+    public void falsePositive() {
+        if (bloom != null) {
+            falsePositives.increment();
+        }
+    }
+
+    @Override
+    public void onCreated(Collection<Beer> beers) {
+        beers.forEach(beer -> add(beer.getUpc()));
+    }
+
+    @Override
+    public void onUpdated(Beer previous, Beer current) {
+        add(current.getUpc());
+        if (previous.getUpc() != null && !previous.getUpc().equals(current.getUpc())) {
+            scheduleRebuild();
+        }
+    }
+
+    @Override
+    public void onDeleted(Beer beer) {
+        scheduleRebuild();
+    }
+
+    Mono<Integer> rebuild() {
+        return Mono.defer(() -> {
+            List<String> written = record();
+            return databaseClient.sql("SELECT upc FROM beer WHERE upc IS NOT NULL")
+                .map((row, metadata) -> row.get("upc", String.class))
+                .all()
+                .collectList()
+                .map(upcs -> install(upcs, written))
+                .doOnError(error -> {
+                    synchronized (lock) {
+                        recorders.remove(written);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Starts collecting the UPCs written from now on, for a filter being built from a read that starts now.
+     */
+    List<String> record() {
+        List<String> written = new ArrayList<>();
+        synchronized (lock) {
+            recorders.add(written);
+        }
+        return written;
+    }
+
+    /**
+     * Builds a filter of {@code upcs} and the UPCs {@code written} meanwhile, and swaps it in.
+     */
+    int install(Collection<String> upcs, List<String> written) {
+        Bloom rebuilt = new Bloom(Math.max(properties.getMinimumCapacity(), upcs.size() * 2), properties.getFalsePositiveRate());
+        upcs.forEach(rebuilt::put);
+        synchronized (lock) {
+            recorders.remove(written);
+            written.forEach(rebuilt::put);
+            bloom = rebuilt;
+        }
+        log.info("Built the UPC filter over {} UPCs, {} bits and {} hashes", upcs.size(), rebuilt.size, rebuilt.hashes);
+        return upcs.size();
+    }
+
+    private void add(String upc) {
+        if (upc == null) {
+            return;
+        }
+        boolean full;
+        synchronized (lock) {
+            recorders.forEach(written -> written.add(upc));
+            Bloom current = bloom;
+            full = current != null && current.put(upc) > current.capacity;
+        }
+        if (full) {
+            scheduleRebuild();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (properties.isEnabled() && rebuildScheduled.compareAndSet(false, true)) {
+            Mono.delay(properties.getRebuildDelay())
+                .flatMap(tick -> {
+                    rebuildScheduled.set(false);
+                    return rebuild();
+                })
+                .subscribe(count -> { }, error -> log.error("Rebuilding the UPC filter failed, keeping the previous one", error));
+        }
+    }
+
+    /**
+     * A Bloom filter of {@code size} bits in atomic words, probed by double hashing, so adding needs no lock and
+     * readers never see a torn word.
+     */
+    private static final class Bloom {
+
+        private final AtomicLongArray words;
+        private final int size;
+        private final int hashes;
+        private final int capacity;
+        private final AtomicInteger added = new AtomicInteger();
+
+        private Bloom(int capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.size = (int) Math.min(Math.max(bits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+            this.hashes = Math.max(1, (int) Math.round((double) size / capacity * ln2));
+            this.capacity = capacity;
+            this.words = new AtomicLongArray((size + Long.SIZE - 1) / Long.SIZE);
+        }
+
+        /**
+         * Adds the value and returns how many values have been added.
+         */
+        int put(String value) {
+            long hash = hash(value);
+            long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                int bit = (int) Math.floorMod(hash + i * step, (long) size);
+                long mask = 1L << bit;
+                words.accumulateAndGet(bit >>> 6, mask, (word, m) -> word | m);
+            }
+            return added.incrementAndGet();
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                int bit = (int) Math.floorMod(hash + i * step, (long) size);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The chance that a value never added passes, from the share of bits set.
+         */
+        double expectedFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) set / size, hashes);
+        }
+
+        /**
+         * FNV-1a over the characters, finished with a 64-bit mix so nearby UPCs spread over the whole range.
+         */
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+            value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+            return value ^ (value >>> 31);
+        }
+    }
+}
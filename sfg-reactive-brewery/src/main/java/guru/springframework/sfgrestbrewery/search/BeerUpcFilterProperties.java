@@ -0,0 +1,32 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.upc-filter")
+public class BeerUpcFilterProperties {
+
+    /**
+     * Answer lookups of UPCs the Bloom filter has never seen with not found, without a query.
+     */
+    private boolean enabled = true;
+
+    /**
+     * False-positive rate the filter is sized for at its capacity.
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Fewest UPCs the filter is sized for; it is sized for twice the known UPCs when that is more.
+     */
+    private int minimumCapacity = 10_000;
+
+    /**
+     * How long after a deletion the filter is rebuilt, so a burst of deletions costs one rebuild.
+     */
+    private Duration rebuildDelay = Duration.ofSeconds(10);
+}
@@ -0,0 +1,25 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+
+import java.util.Collection;
+
+/**
+ * Notified by {@link BeerServiceImpl} after each successful write, so derived state (caches, indexes) can follow
+ * the {@code beer} table. Implementations are called on the writing thread and must not block.
+ */
+public interface BeerChangeListener {
+
+    default void onCreated(Collection<Beer> beers) {
+    }
+
+    /**
+     * {@code previous} is the beer as the service knew it before the update, from the catalog, the cache or the
+     * table, and is never {@code null}; {@code current} is the row as stored.
+     */
+    default void onUpdated(Beer previous, Beer current) {
+    }
+
+    default void onDeleted(Beer beer) {
+    }
+}
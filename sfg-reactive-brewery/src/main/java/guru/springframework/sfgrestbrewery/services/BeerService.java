@@ -1,26 +1,70 @@
 package guru.springframework.sfgrestbrewery.services;
 
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import org.springframework.data.domain.PageRequest;
 
 public interface BeerService {
+
     Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, Boolean showInventoryOnHand);
 
+    /**
+     * Lists beers by offset page or, when a cursor is given, by seeking past the cursor's id. The total is counted
+     * when {@code withTotal} is true, or when it is null and no cursor is given.
+     * <p>
+     * Beers are in id order unless the page request sorts by the {@link BeerSort} properties; ties are broken by
+     * id, nulls sort lowest, and pages in any order but id order have no cursor.
+     */
+    Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, BeerCursor cursor,
+                                  Boolean withTotal, Boolean showInventoryOnHand);
+
+    /**
+     * Streams every beer matching the filter in id order, starting after the cursor when one is given. Rows are
+     * emitted as the database produces them, so callers should consume the flux rather than collect it.
+     */
+    Flux<BeerDto> streamBeers(String beerName, BeerStyleEnum beerStyle, BeerCursor cursor, Boolean showInventoryOnHand);
+
     Mono<BeerDto> getById(Integer beerId, Boolean showInventoryOnHand);
 
+    /**
+     * Emits the beers with the given ids in the order asked for, each once, and skips ids that do not exist. Beers
+     * that are not cached are read with a single query.
+     */
+    Flux<BeerDto> getByIds(List<Integer> beerIds, Boolean showInventoryOnHand);
+
     Mono<BeerDto> saveNewBeer(BeerDto beerDto);
 
     Mono<BeerDto> saveNewBeer(Mono<BeerDto> beerDto);
 
+    /**
+     * Saves the beers with a single batched insert and emits the saved beers in input order.
+     */
+    Flux<BeerDto> saveNewBeers(List<BeerDto> beerDtos);
+
+    /**
+     * Writes the beer and emits the row as stored. A {@code version} makes the write conditional and fails it with
+     * {@code OptimisticLockingFailureException} when the beer has moved on; without one the last writer wins, as
+     * clients that predate versions expect. Emits an empty beer when there is no beer with the id.
+     */
     Mono<BeerDto> updateBeer(Integer beerId, BeerDto beerDto);
 
-    Mono<BeerDto> getByUpc(String upc);
+    /**
+     * Takes stock of the beer and emits the quantity left on hand. Fails with {@code InsufficientInventoryException}
+     * when there is not enough stock and with {@code NotFoundException} for an unknown beer.
+     */
+    Mono<Long> reserveInventory(Integer beerId, int quantity);
 
-    void deleteBeerById(Integer beerId);
+    Mono<Long> releaseInventory(Integer beerId, int quantity);
+
+    Mono<BeerDto> getByUpc(String upc);
 
     Mono<Void> reactiveDeleteById(Integer beerId);
 
@@ -1,111 +1,454 @@
 package guru.springframework.sfgrestbrewery.services;
 
+import guru.springframework.sfgrestbrewery.cache.BeerCache;
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.cache.BeerListKey;
+import guru.springframework.sfgrestbrewery.cache.BeerLookupCoalescer;
+import guru.springframework.sfgrestbrewery.catalog.BeerCatalog;
 import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.inventory.BeerInventory;
+import guru.springframework.sfgrestbrewery.metrics.BeerMetrics;
+import guru.springframework.sfgrestbrewery.repositories.BeerBatchRepository;
+import guru.springframework.sfgrestbrewery.repositories.BeerIdBatcher;
 import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.search.BeerNameIndex;
+import guru.springframework.sfgrestbrewery.search.BeerStyleIndex;
+import guru.springframework.sfgrestbrewery.search.BeerUpcFilter;
 import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
 import guru.springframework.sfgrestbrewery.web.mappers.BeerMapper;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
 
 import static org.springframework.data.relational.core.query.Criteria.where;
-import static org.springframework.data.relational.core.query.Query.empty;
 import static org.springframework.data.relational.core.query.Query.query;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BeerServiceImpl implements BeerService {
+    private static final String UPDATE = "UPDATE beer SET beer_name = :beerName, beer_style = :beerStyle, upc = :upc, "
+        + "price = :price, version = version + 1, last_modified_date = :lastModifiedDate WHERE id = :id";
+
     private final BeerRepository beerRepository;
     private final BeerMapper beerMapper;
     private final R2dbcEntityTemplate template;
+    private final BeerBatchRepository beerBatchRepository;
+    private final BeerCache beerCache;
+    private final BeerCatalog beerCatalog;
+    private final BeerLookupCoalescer beerLookups;
+    private final BeerIdBatcher beerIdBatcher;
+    private final BeerNameIndex beerNameIndex;
+    private final BeerStyleIndex beerStyleIndex;
+    private final BeerUpcFilter beerUpcFilter;
+    private final BeerInventory beerInventory;
+    private final BeerMetrics beerMetrics;
+    private final List<BeerChangeListener> changeListeners;
 
-    @Cacheable(cacheNames = "beerListCache", condition = "#showInventoryOnHand == false ")
     @Override
     public Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, Boolean showInventoryOnHand) {
-        Query query = empty();
-        if (!ObjectUtils.isEmpty(beerName) && !ObjectUtils.isEmpty(beerStyle)) {
-            query = query(where("beerName").like("%" + beerName + "%").and("beerStyle").is(beerStyle));
-        } else if (!ObjectUtils.isEmpty(beerName) && ObjectUtils.isEmpty(beerStyle)) {
-            query = query(where("beerName").like("%" + beerName + "%"));
-        } else if (ObjectUtils.isEmpty(beerName) && !ObjectUtils.isEmpty(beerStyle)) {
-            query = query(where("beerStyle").is(beerStyle));
+        return listBeers(beerName, beerStyle, pageRequest, null, null, showInventoryOnHand);
+    }
+
+    @Override
+    public Mono<BeerPagedList> listBeers(String beerName, BeerStyleEnum beerStyle, PageRequest pageRequest, BeerCursor cursor,
+                                         Boolean withTotal, Boolean showInventoryOnHand) {
+        BeerFilter filter = new BeerFilter(beerName, beerStyle);
+        boolean countTotal = withTotal == null ? cursor == null : withTotal;
+        if (Boolean.TRUE.equals(showInventoryOnHand)) {
+            return findBeers(filter, pageRequest, cursor, countTotal, true);
+        }
+        if (beerCatalog.isReady() || byStyleIndex(filter, columnOrder(pageRequest.getSort()))) {
+            // pages cut from memory are always current and cheap, caching them would only add invalidation
+            return findBeers(filter, pageRequest, cursor, countTotal, false);
+        }
+        BeerListKey key = new BeerListKey(filter, pageRequest.getPageNumber(), pageRequest.getPageSize(), pageRequest.getSort(),
+            cursor, countTotal);
+        return beerCache.getPage(key, k -> findBeers(filter, pageRequest, cursor, countTotal, false));
+    }
+
+    private Mono<BeerPagedList> findBeers(BeerFilter filter, PageRequest pageRequest, BeerCursor cursor, boolean withTotal,
+                                          boolean showInventoryOnHand) {
+        Function<Beer, BeerDto> mapper = showInventoryOnHand ? this::beerToBeerDtoWithInventory : beerMapper::beerToBeerDto;
+        boolean fromCatalog = !showInventoryOnHand && beerCatalog.isReady();
+        Sort sort = pageRequest.getSort();
+        if (!ObjectUtils.isEmpty(filter.getBeerName()) && beerNameIndex.isReady()
+            && (sort.getOrderFor(BeerSort.RELEVANCE) != null || BeerSort.isIdOrder(sort))) {
+            return findBeersByName(filter, pageRequest, cursor, mapper, fromCatalog);
+        }
+        Sort order = columnOrder(sort);
+        if (byStyleIndex(filter, order)) {
+            return findBeersByStyle(filter, pageRequest, order, cursor, showInventoryOnHand);
+        }
+        if (fromCatalog) {
+            return Mono.fromSupplier(() -> catalogPage(filter, pageRequest, order, cursor, mapper));
         }
 
-        return template.select(Beer.class)
-            .matching(query.with(pageRequest))
+        // keyset seeking only works in id order; pages in any other order are found by offset
+        boolean idOrder = BeerSort.isIdOrder(order);
+        Query query = cursor != null && idOrder
+            ? query(criteria(filter).and("id").greaterThan(cursor.getLastId()))
+            : query(criteria(filter)).offset(pageRequest.getOffset());
+
+        // one row past the page tells us whether there is a next page without counting
+        Mono<List<Beer>> beers = beerMetrics.query("list", template.select(Beer.class)
+            .matching(query.sort(BeerSort.withIdTiebreak(order)).limit(pageRequest.getPageSize() + 1))
             .all()
-            .map(beerMapper::beerToBeerDto)
-            .collect(Collectors.toList())
-            .map(beers -> new BeerPagedList(beers, PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()), beers.size()));
+            .collectList());
+        Mono<Long> total = withTotal
+            ? beerCache.count(filter, f -> beerMetrics.query("count", template.count(query(criteria(f)), Beer.class)))
+            : Mono.just(-1L);
+        return Mono.zip(beers, total).map(tuple -> toPage(tuple.getT1(), tuple.getT2(), pageRequest, mapper, idOrder));
+    }
+
+    /**
+     * The sort without relevance, which only the name index can order by; everything else falls back to id order.
+     */
+    private static Sort columnOrder(Sort sort) {
+        return sort.getOrderFor(BeerSort.RELEVANCE) != null ? Sort.unsorted() : sort;
+    }
+
+    /**
+     * True when the style index can cut the page: a style without a name, in id order or by price then id.
+     */
+    private boolean byStyleIndex(BeerFilter filter, Sort order) {
+        return ObjectUtils.isEmpty(filter.getBeerName()) && filter.getBeerStyle() != null && beerStyleIndex.isReady()
+            && (BeerSort.isIdOrder(order) || priceDirection(order) != null);
+    }
+
+    /**
+     * The direction of an order that is by price with ties by id in the same direction, otherwise null.
+     */
+    private static Sort.Direction priceDirection(Sort order) {
+        List<Sort.Order> orders = BeerSort.withIdTiebreak(order).toList();
+        return orders.size() == 2 && orders.get(0).getProperty().equals(BeerSort.PRICE)
+            && orders.get(1).getDirection() == orders.get(0).getDirection() ? orders.get(0).getDirection() : null;
+    }
+
+    /**
+     * Cuts the page's ids out of the style index and resolves only those: from the catalog when it is ready,
+     * otherwise through the id cache, with the beers it misses read in one query.
+     */
+    private Mono<BeerPagedList> findBeersByStyle(BeerFilter filter, PageRequest pageRequest, Sort order, BeerCursor cursor,
+                                                 boolean showInventoryOnHand) {
+        boolean idOrder = BeerSort.isIdOrder(order);
+        int pageSize = pageRequest.getPageSize();
+        BeerStyleIndex.Slice slice = beerStyleIndex.slice(filter.getBeerStyle(), idOrder ? null : priceDirection(order),
+            cursor != null ? cursor.getLastId() : null, pageRequest.getOffset(), pageSize + 1);
+        boolean hasNext = slice.getIds().size() > pageSize;
+        List<Integer> pageIds = hasNext ? slice.getIds().subList(0, pageSize) : slice.getIds();
+        String nextCursor = hasNext && idOrder ? BeerCursor.after(pageIds.get(pageIds.size() - 1)).encode() : null;
+
+        Mono<Map<Integer, BeerDto>> beers = pageIds.isEmpty()
+            ? Mono.just(Collections.emptyMap())
+            : showInventoryOnHand
+            ? findAllById(pageIds, this::beerToBeerDtoWithInventory)
+            : beerCatalog.isReady()
+            ? Mono.fromSupplier(() -> pageIds.stream().map(beerCatalog::getById).filter(Objects::nonNull)
+                .collect(Collectors.toMap(Beer::getId, beerMapper::beerToBeerDto)))
+            : beerCache.getAllById(pageIds, missing -> findAllById(missing, beerMapper::beerToBeerDto));
+        return beers.map(beersById -> new BeerPagedList(
+            pageIds.stream().map(beersById::get).filter(Objects::nonNull).collect(Collectors.toList()),
+            PageRequest.of(pageRequest.getPageNumber(), pageSize), slice.getTotal(), nextCursor));
+    }
+
+    /**
+     * Cuts the page out of the catalog's id-ordered beers, one past the page as for the database, with the exact
+     * total. Any other order keeps only the beers up to the end of the page, in a bounded heap.
+     */
+    private BeerPagedList catalogPage(BeerFilter filter, PageRequest pageRequest, Sort order, BeerCursor cursor,
+                                      Function<Beer, BeerDto> mapper) {
+        List<Beer> beers = beerCatalog.find(filter);
+        boolean idOrder = BeerSort.isIdOrder(order);
+        long end = pageRequest.getOffset() + pageRequest.getPageSize() + 1;
+        List<Beer> sorted = idOrder ? beers : BeerCatalog.first(beers, order, (int) Math.min(end, beers.size()));
+        int from = cursor != null && idOrder
+            ? BeerCatalog.indexAfter(sorted, cursor.getLastId())
+            : (int) Math.min(pageRequest.getOffset(), sorted.size());
+        int to = Math.min(from + pageRequest.getPageSize() + 1, sorted.size());
+        return toPage(sorted.subList(from, to), beers.size(), pageRequest, mapper, idOrder);
+    }
+
+    /**
+     * Resolves the name filter through the n-gram index and reads only the ids of the requested page, from the
+     * catalog when {@code fromCatalog} is set.
+     */
+    private Mono<BeerPagedList> findBeersByName(BeerFilter filter, PageRequest pageRequest, BeerCursor cursor,
+                                                Function<Beer, BeerDto> mapper, boolean fromCatalog) {
+        boolean rank = pageRequest.getSort().getOrderFor(BeerSort.RELEVANCE) != null;
+        List<Integer> ids = beerNameIndex.search(filter.getBeerName(), filter.getBeerStyle(), rank);
+
+        int from = cursor != null && !rank
+            ? firstAfter(ids, cursor.getLastId())
+            : (int) Math.min(pageRequest.getOffset(), ids.size());
+        int to = Math.min(from + pageRequest.getPageSize(), ids.size());
+        List<Integer> pageIds = ids.subList(from, to);
+        String nextCursor = to < ids.size() && !rank ? BeerCursor.after(pageIds.get(pageIds.size() - 1)).encode() : null;
+
+        Mono<Map<Integer, Beer>> beers = pageIds.isEmpty()
+            ? Mono.just(Collections.emptyMap())
+            : fromCatalog
+            ? Mono.fromSupplier(() -> pageIds.stream().map(beerCatalog::getById).filter(Objects::nonNull)
+                .collect(Collectors.toMap(Beer::getId, Function.identity())))
+            : beerMetrics.query("list", template.select(Beer.class).matching(query(where("id").in(pageIds))).all()
+                .collectMap(Beer::getId));
+        return beers.map(beersById -> new BeerPagedList(
+            beerMetrics.mapping("page", () ->
+                pageIds.stream().map(beersById::get).filter(Objects::nonNull).map(mapper).collect(Collectors.toList())),
+            PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()), ids.size(), nextCursor));
+    }
+
+    private static int firstAfter(List<Integer> sortedIds, Integer lastId) {
+        int position = Collections.binarySearch(sortedIds, lastId);
+        return position >= 0 ? position + 1 : -(position + 1);
+    }
+
+    private BeerPagedList toPage(List<Beer> beers, long total, PageRequest pageRequest, Function<Beer, BeerDto> mapper,
+                                 boolean withCursor) {
+        int pageSize = pageRequest.getPageSize();
+        boolean hasNext = beers.size() > pageSize;
+        List<Beer> content = hasNext ? beers.subList(0, pageSize) : beers;
+        String nextCursor = hasNext && withCursor ? BeerCursor.after(content.get(content.size() - 1).getId()).encode() : null;
+        long totalElements = total >= 0 ? total : pageRequest.getOffset() + content.size() + (hasNext ? 1 : 0);
+
+        return new BeerPagedList(beerMetrics.mapping("page", () -> content.stream().map(mapper).collect(Collectors.toList())),
+            PageRequest.of(pageRequest.getPageNumber(), pageSize), totalElements, nextCursor);
+    }
+
+    @Override
+    public Flux<BeerDto> streamBeers(String beerName, BeerStyleEnum beerStyle, BeerCursor cursor, Boolean showInventoryOnHand) {
+        BeerFilter filter = new BeerFilter(beerName, beerStyle);
+        if (!Boolean.TRUE.equals(showInventoryOnHand) && beerCatalog.isReady()) {
+            return Flux.defer(() -> {
+                List<Beer> beers = beerCatalog.find(filter);
+                int from = cursor != null ? BeerCatalog.indexAfter(beers, cursor.getLastId()) : 0;
+                return Flux.fromIterable(beers.subList(from, beers.size()));
+            }).map(beerMapper::beerToBeerDto);
+        }
+        Criteria criteria = criteria(filter);
+        if (cursor != null) {
+            criteria = criteria.and("id").greaterThan(cursor.getLastId());
+        }
+        return beerMetrics.query("stream", template.select(Beer.class)
+            .matching(query(criteria).sort(Sort.by("id")))
+            .all())
+            .map(Boolean.TRUE.equals(showInventoryOnHand) ? this::beerToBeerDtoWithInventory : beerMapper::beerToBeerDto);
+    }
+
+    private Criteria criteria(BeerFilter filter) {
+        Criteria criteria = Criteria.empty();
+        if (!ObjectUtils.isEmpty(filter.getBeerName())) {
+            criteria = criteria.and("beerName").like("%" + filter.getBeerName() + "%");
+        }
+        if (!ObjectUtils.isEmpty(filter.getBeerStyle())) {
+            criteria = criteria.and("beerStyle").is(filter.getBeerStyle());
+        }
+        return criteria;
     }
 
-    @Cacheable(cacheNames = "beerCache", key = "#beerId", condition = "#showInventoryOnHand == false ")
     @Override
     public Mono<BeerDto> getById(Integer beerId, Boolean showInventoryOnHand) {
         if (showInventoryOnHand) {
-            return beerRepository.findById(beerId).map(beerMapper::beerToBeerDtoWithInventory);
+            return findById(beerId).map(this::beerToBeerDtoWithInventory);
+        } else if (beerCatalog.isReady()) {
+            return Mono.fromSupplier(() -> beerCatalog.getById(beerId)).map(beerMapper::beerToBeerDto);
         } else {
-            return beerRepository.findById(beerId).map(beerMapper::beerToBeerDto);
+            return beerCache.getById(beerId, id -> findById(id).map(beerMapper::beerToBeerDto));
         }
     }
 
+    private Mono<Beer> findById(Integer beerId) {
+        return beerLookups.getById(beerId, beerIdBatcher::findById);
+    }
+
+    @Override
+    public Flux<BeerDto> getByIds(List<Integer> beerIds, Boolean showInventoryOnHand) {
+        List<Integer> ids = beerIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        if (!Boolean.TRUE.equals(showInventoryOnHand) && beerCatalog.isReady()) {
+            return Flux.fromStream(() -> ids.stream().map(beerCatalog::getById).filter(Objects::nonNull))
+                .map(beerMapper::beerToBeerDto);
+        }
+        Mono<Map<Integer, BeerDto>> beers = Boolean.TRUE.equals(showInventoryOnHand)
+            ? findAllById(ids, this::beerToBeerDtoWithInventory)
+            : beerCache.getAllById(ids, missing -> findAllById(missing, beerMapper::beerToBeerDto));
+        return beers.flatMapIterable(beersById -> ids.stream().map(beersById::get).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    private Mono<Map<Integer, BeerDto>> findAllById(List<Integer> beerIds, Function<Beer, BeerDto> mapper) {
+        return beerMetrics.query("findAllById", beerRepository.findAllById(beerIds).map(mapper).collectMap(BeerDto::getId));
+    }
+
     @Override
     public Mono<BeerDto> saveNewBeer(BeerDto beerDto) {
         Beer beer = beerMapper.beerDtoToBeer(beerDto);
-        return beerRepository.save(beer).map(beerMapper::beerToBeerDto);
+        return beerMetrics.query("save", beerRepository.save(beer))
+            .doOnNext(this::created)
+            .map(beerMapper::beerToBeerDto);
     }
 
     @Override
     public Mono<BeerDto> saveNewBeer(Mono<BeerDto> beerDto) {
         return beerDto.map(beerMapper::beerDtoToBeer)
-            .flatMap(beerRepository::save)
+            .flatMap(beer -> beerMetrics.query("save", beerRepository.save(beer)))
+            .doOnNext(this::created)
             .map(beerMapper::beerToBeerDto);
     }
 
+    @Override
+    public Flux<BeerDto> saveNewBeers(List<BeerDto> beerDtos) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Beer> beers = beerDtos.stream().map(beerMapper::beerDtoToBeer).collect(Collectors.toList());
+        beers.forEach(beer -> {
+            beer.setCreatedDate(now);
+            beer.setLastModifiedDate(now);
+        });
+        return beerMetrics.query("saveAll", beerBatchRepository.insertAll(beers))
+            .collectList()
+            .doOnNext(savedBeers -> changeListeners.forEach(listener -> listener.onCreated(savedBeers)))
+            .flatMapIterable(savedBeers -> savedBeers)
+            .map(beerMapper::beerToBeerDto);
+    }
+
+    /**
+     * Updates the beer in a single conditional statement. When the DTO carries a version the row is only written if
+     * it still has that version; otherwise the write is last-writer-wins and can overwrite a concurrent update.
+     * Either way the version is bumped. The previous state comes from the catalog or the cache when either holds the
+     * beer and is read from the table only when neither does; the stored row is built from it, the DTO and the
+     * bumped version rather than read back.
+     */
     @Override
     public Mono<BeerDto> updateBeer(Integer beerId, BeerDto beerDto) {
-        return beerRepository.findById(beerId)
-            .defaultIfEmpty(new Beer())
-            .map(beer -> {
-                beer.setBeerName(beerDto.getBeerName());
-                beer.setBeerStyle(BeerStyleEnum.valueOf(beerDto.getBeerStyle()));
-                beer.setPrice(beerDto.getPrice());
-                beer.setUpc(beerDto.getUpc());
-                return beer;
+        Long expectedVersion = beerDto.getVersion();
+        return previous(beerId)
+            .flatMap(previous -> {
+                Beer current = previous.toBuilder()
+                    .beerName(beerDto.getBeerName())
+                    .beerStyle(BeerStyleEnum.valueOf(beerDto.getBeerStyle()))
+                    .upc(beerDto.getUpc())
+                    .price(beerDto.getPrice())
+                    .version(expectedVersion != null ? expectedVersion + 1
+                        : previous.getVersion() != null ? previous.getVersion() + 1 : null)
+                    .lastModifiedDate(LocalDateTime.now())
+                    .build();
+                return beerMetrics.query("update", update(current, expectedVersion))
+                    .flatMap(rowsUpdated -> {
+                        if (rowsUpdated > 0) {
+                            changeListeners.forEach(listener -> listener.onUpdated(previous, current));
+                            return Mono.just(current);
+                        }
+                        // the beer was there a moment ago: a version-checked miss is a conflict, any other a delete
+                        return expectedVersion != null
+                            ? Mono.error(new OptimisticLockingFailureException("Beer " + beerId + " is no longer at version " + expectedVersion))
+                            : Mono.empty();
+                    });
             })
-            .flatMap(updatedBeer -> updatedBeer.getId() == null ? Mono.just(updatedBeer) : beerRepository.save(updatedBeer))
+            .defaultIfEmpty(new Beer())
             .map(beerMapper::beerToBeerDto);
     }
 
-    @Cacheable(cacheNames = "beerUpcCache")
+    private Mono<Beer> previous(Integer beerId) {
+        return Mono.defer(() -> {
+            Beer known = beerCatalog.isReady() ? beerCatalog.getById(beerId) : null;
+            if (known == null) {
+                known = beerCache.getIfPresent(beerId);
+            }
+            return known != null ? Mono.just(known) : beerMetrics.query("findById", beerRepository.findById(beerId));
+        });
+    }
+
+    private Mono<Integer> update(Beer beer, Long expectedVersion) {
+        String sql = expectedVersion != null ? UPDATE + " AND version = :expectedVersion" : UPDATE;
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql)
+            .bind("id", beer.getId())
+            .bind("beerName", beer.getBeerName())
+            .bind("beerStyle", beer.getBeerStyle().name())
+            .bind("lastModifiedDate", beer.getLastModifiedDate());
+        spec = beer.getUpc() != null ? spec.bind("upc", beer.getUpc()) : spec.bindNull("upc", String.class);
+        spec = beer.getPrice() != null ? spec.bind("price", beer.getPrice()) : spec.bindNull("price", BigDecimal.class);
+        if (expectedVersion != null) {
+            spec = spec.bind("expectedVersion", expectedVersion);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
     @Override
-    public Mono<BeerDto> getByUpc(String upc) {
-        return beerRepository.findByUpc(upc).map(beerMapper::beerToBeerDto);
+    public Mono<Long> reserveInventory(Integer beerId, int quantity) {
+        return beerInventory.reserve(beerId, quantity);
     }
 
     @Override
-    public void deleteBeerById(Integer beerId) {
-        beerRepository.deleteById(beerId).subscribe();
+    public Mono<Long> releaseInventory(Integer beerId, int quantity) {
+        return beerInventory.release(beerId, quantity);
     }
 
+    @Override
+    public Mono<BeerDto> getByUpc(String upc) {
+        if (beerCatalog.isReady()) {
+            return Mono.fromSupplier(() -> beerCatalog.getByUpc(upc)).map(beerMapper::beerToBeerDto);
+        }
+        if (!beerUpcFilter.mightContain(upc)) {
+            return Mono.empty();
+        }
+        return beerCache.getByUpc(upc, key -> beerLookups.getByUpc(key, u -> beerMetrics.query("findByUpc", beerRepository.findByUpc(u))
+                .switchIfEmpty(Mono.fromRunnable(beerUpcFilter::falsePositive)))
+            .map(beerMapper::beerToBeerDto));
+    }
+
+    @Override
     public Mono<Void> reactiveDeleteById(Integer beerId) {
-        return beerRepository.findById(beerId)
+        return beerMetrics.query("findById", beerRepository.findById(beerId))
             .switchIfEmpty(Mono.error(new NotFoundException()))
-            .map(Beer::getId)
-            .flatMap(beerRepository::deleteById);
+            .flatMap(this::delete);
+    }
+
+    private Mono<Void> delete(Beer beer) {
+        return beerMetrics.query("delete", beerRepository.deleteById(beer.getId()))
+            .then(Mono.fromRunnable(() -> changeListeners.forEach(listener -> listener.onDeleted(beer))));
+    }
+
+    /**
+     * The row's quantity can trail reservations by up to a flush interval, so a live counter wins when there is one.
+     */
+    private BeerDto beerToBeerDtoWithInventory(Beer beer) {
+        BeerDto beerDto = beerMapper.beerToBeerDtoWithInventory(beer);
+        Long onHand = beerInventory.onHand(beer.getId());
+        if (onHand != null) {
+            beerDto.setQuantityOnHand(onHand.intValue());
+        }
+        return beerDto;
+    }
+
+    private void created(Beer beer) {
+        List<Beer> beers = Collections.singletonList(beer);
+        changeListeners.forEach(listener -> listener.onCreated(beers));
     }
 }
@@ -1,19 +1,30 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
+import guru.springframework.sfgrestbrewery.cache.BeerResponseCache;
 import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerRepresentation;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
 import reactor.core.publisher.Mono;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -25,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @RequiredArgsConstructor
@@ -34,15 +46,21 @@ public class BeerController {
 
     private static final Integer DEFAULT_PAGE_NUMBER = 0;
     private static final Integer DEFAULT_PAGE_SIZE = 25;
+    private static final List<MediaType> PAGE_TYPES = List.of(MediaType.APPLICATION_JSON, BeerPagedList.COMPACT_JSON);
 
     private final BeerService beerService;
-
-    @GetMapping(produces = {"application/json"}, path = "beer")
-    public ResponseEntity<Mono<BeerPagedList>> listBeers(@RequestParam(value = "pageNumber", required = false) Integer pageNumber,
-                                                         @RequestParam(value = "pageSize", required = false) Integer pageSize,
-                                                         @RequestParam(value = "beerName", required = false) String beerName,
-                                                         @RequestParam(value = "beerStyle", required = false) BeerStyleEnum beerStyle,
-                                                         @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand) {
+    private final BeerResponseCache responseCache;
+
+    @GetMapping(produces = {"application/json", BeerPagedList.COMPACT_JSON_VALUE}, path = "beer")
+    public Mono<ResponseEntity<Object>> listBeers(ServerHttpRequest request,
+                                                  @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
+                                                  @RequestParam(value = "pageSize", required = false) Integer pageSize,
+                                                  @RequestParam(value = "beerName", required = false) String beerName,
+                                                  @RequestParam(value = "beerStyle", required = false) BeerStyleEnum beerStyle,
+                                                  @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "withTotal", required = false) Boolean withTotal,
+                                                  @RequestParam(value = "rank", required = false) Boolean rank) {
 
         if (showInventoryOnHand == null) {
             showInventoryOnHand = false;
@@ -56,55 +74,129 @@ public class BeerController {
             pageSize = DEFAULT_PAGE_SIZE;
         }
 
-        Mono<BeerPagedList> beerList = beerService.listBeers(beerName, beerStyle, PageRequest.of(pageNumber, pageSize), showInventoryOnHand);
-        return ResponseEntity.ok(beerList);
+        Sort sort = sort(request, Boolean.TRUE.equals(rank));
+        if (cursor != null && !BeerSort.isIdOrder(sort)) {
+            throw new ServerWebInputException("cursor can only page through id order");
+        }
+        PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, sort);
+
+        MediaType mediaType = BeerRepresentation.negotiate(request.getHeaders().getAccept(), PAGE_TYPES);
+        boolean cacheable = !showInventoryOnHand;
+        return beerService.listBeers(beerName, beerStyle, pageRequest, cursor(cursor), withTotal, showInventoryOnHand)
+            .map(beerPagedList -> {
+                String eTag = BeerRepresentation.eTag(beerPagedList, mediaType);
+                return body(ResponseEntity.ok().contentType(mediaType).eTag(eTag).varyBy(HttpHeaders.ACCEPT), request, eTag,
+                    beerPagedList, mediaType, cacheable);
+            });
     }
 
     @GetMapping("beer/{beerId}")
-    public ResponseEntity<Mono<BeerDto>> getBeerById(@PathVariable("beerId") Integer beerId,
-                                                     @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand) {
+    public Mono<ResponseEntity<Object>> getBeerById(ServerHttpRequest request, @PathVariable("beerId") Integer beerId,
+                                                    @RequestParam(value = "showInventoryOnHand", required = false) Boolean showInventoryOnHand) {
         if (showInventoryOnHand == null) {
             showInventoryOnHand = false;
         }
 
-        Mono<BeerDto> beerDtoMono = beerService.getById(beerId, showInventoryOnHand)
+        return beerService.getById(beerId, showInventoryOnHand)
             .defaultIfEmpty(new BeerDto())
             .doOnNext(beerDto -> {
                 if (beerDto.getId() == null) {
                     throw new NotFoundException();
                 }
-            });
-        return ResponseEntity.ok(beerDtoMono);
+            })
+            .map(beerDto -> beerResponse(request, beerDto));
     }
 
     @GetMapping("beerUpc/{upc}")
-    public ResponseEntity<Mono<BeerDto>> getBeerByUpc(@PathVariable("upc") String upc) {
-        return new ResponseEntity<>(beerService.getByUpc(upc), HttpStatus.OK);
+    public Mono<ResponseEntity<Object>> getBeerByUpc(ServerHttpRequest request, @PathVariable("upc") String upc) {
+        return beerService.getByUpc(upc)
+            .map(beerDto -> beerResponse(request, beerDto))
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Carries the beer's validators; Spring answers a matching If-None-Match or If-Modified-Since with 304 before
+     * the body is written.
+     */
+    private ResponseEntity<Object> beerResponse(ServerHttpRequest request, BeerDto beerDto) {
+        String eTag = BeerRepresentation.eTag(beerDto, MediaType.APPLICATION_JSON);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+        Instant lastModified = BeerRepresentation.lastModified(beerDto);
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        boolean acceptsJson = request.getHeaders().getAccept().isEmpty()
+            || request.getHeaders().getAccept().stream().anyMatch(MediaType.APPLICATION_JSON::isCompatibleWith);
+        return body(response, request, eTag, beerDto, MediaType.APPLICATION_JSON, acceptsJson && beerDto.getQuantityOnHand() == null);
+    }
+
+    /**
+     * Sends a {@code cacheable} body as the bytes {@link BeerResponseCache} holds for its ETag, gzipped if the client
+     * accepts it, and anything else as the object for Spring to encode.
+     */
+    private ResponseEntity<Object> body(ResponseEntity.BodyBuilder response, ServerHttpRequest request, String eTag, Object body,
+                                        MediaType mediaType, boolean cacheable) {
+        if (!cacheable || !responseCache.isEnabled()) {
+            return response.body(body);
+        }
+        BeerResponseCache.EncodedBody encoded = responseCache.get(eTag, body, mediaType);
+        boolean gzip = encoded.isCompressible() && BeerResponseCache.acceptsGzip(request.getHeaders());
+        response.contentType(mediaType);
+        if (encoded.isCompressible()) {
+            response.headers(headers -> {
+                List<String> vary = new ArrayList<>(headers.getVary());
+                vary.add(HttpHeaders.ACCEPT_ENCODING);
+                headers.setVary(vary);
+            });
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        byte[] bytes = encoded.getBytes(gzip);
+        return response.contentLength(bytes.length).body(DefaultDataBufferFactory.sharedInstance.wrap(bytes));
     }
 
     @PostMapping(path = "beer")
-    public ResponseEntity<BeerDto> saveNewBeer(@RequestBody @Validated BeerDto beerDto) {
-
-        AtomicInteger newBeerId = new AtomicInteger();
-        beerService.saveNewBeer(beerDto).subscribe(newBeer -> newBeerId.set(newBeer.getId()));
-        return ResponseEntity
-            .created(UriComponentsBuilder
-                .fromHttpUrl("http://api.springframework.guru/api/v1/beer/" + newBeerId.get())
-                .build().toUri())
-            .build();
+    public Mono<ResponseEntity<Void>> saveNewBeer(@RequestBody @Validated BeerDto beerDto) {
+        return beerService.saveNewBeer(beerDto)
+            .map(newBeer -> ResponseEntity
+                .created(UriComponentsBuilder
+                    .fromHttpUrl("http://api.springframework.guru/api/v1/beer/" + newBeer.getId())
+                    .build().toUri())
+                .build());
     }
 
     @PutMapping("beer/{beerId}")
-    public ResponseEntity<Void> updateBeerById(@PathVariable("beerId") Integer beerId, @RequestBody @Validated BeerDto beerDto) {
-        AtomicBoolean beerExists = new AtomicBoolean(false);
-        beerService.updateBeer(beerId, beerDto).subscribe(savedDto -> beerExists.set(savedDto.getId() != null));
-        return beerExists.get() ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    public Mono<ResponseEntity<Void>> updateBeerById(@PathVariable("beerId") Integer beerId, @RequestBody @Validated BeerDto beerDto) {
+        return beerService.updateBeer(beerId, beerDto)
+            .map(savedDto -> savedDto.getId() != null
+                ? ResponseEntity.noContent().<Void>build()
+                : ResponseEntity.notFound().<Void>build());
     }
 
     @DeleteMapping("beer/{beerId}")
-    public ResponseEntity<Void> deleteBeerById(@PathVariable("beerId") Integer beerId) {
-        beerService.deleteBeerById(beerId);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public Mono<ResponseEntity<Void>> deleteBeerById(@PathVariable("beerId") Integer beerId) {
+        // v1 deletes are idempotent: deleting a missing beer still answers 204
+        return beerService.reactiveDeleteById(beerId)
+            .onErrorResume(NotFoundException.class, exception -> Mono.empty())
+            .thenReturn(ResponseEntity.noContent().<Void>build());
+    }
+
+    private static BeerCursor cursor(String cursor) {
+        try {
+            return BeerCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException("Invalid value for query parameter cursor");
+        }
+    }
+
+    private static Sort sort(ServerHttpRequest request, boolean rank) {
+        try {
+            // read raw, a bound list would split "price,desc" into two values
+            return BeerSort.parse(request.getQueryParams().getOrDefault("sort", List.of()), rank);
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException(e.getMessage());
+        }
     }
 
     @ExceptionHandler
@@ -112,4 +204,9 @@ public class BeerController {
         return ResponseEntity.notFound().build();
     }
 
+    @ExceptionHandler
+    ResponseEntity<Void> handleOptimisticLockingFailureException(OptimisticLockingFailureException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
 }
@@ -0,0 +1,37 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private int initialLimit = 50;
+
+    private int minLimit = 10;
+
+    private int maxLimit = 500;
+
+    /**
+     * How far one request's latency moves the limit, between 0 and 1.
+     */
+    private double smoothing = 0.1;
+
+    /**
+     * Share of the limit writes may take, so a write burst leaves room for reads.
+     */
+    private double writeShare = 0.9;
+
+    /**
+     * Share of the limit batch uploads and streams may take.
+     */
+    private double bulkShare = 0.5;
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,106 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * Sheds load on the beer APIs once they stop keeping up. Requests past the {@link GradientLimit adaptive limit} get
+ * a 503 with {@code Retry-After} straight away instead of queueing behind the database pool. Reads may use the
+ * whole limit, writes and bulk requests (batch uploads and streams) only a share of it, so they are turned away
+ * first. Streams and uploads do not feed the limit: their duration says nothing about how loaded the service is.
+ * <p>
+ * Ordered after the metrics filter, so rejected requests are still recorded with their 503.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitWebFilter implements WebFilter {
+
+    static final String LIMIT = "http.server.requests.limit";
+    static final String REJECTED = "http.server.requests.rejected";
+
+    enum Priority {
+        READ, WRITE, BULK
+    }
+
+    private final ConcurrencyLimitProperties properties;
+    private final GradientLimit limit;
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+
+    public ConcurrencyLimitWebFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limit = new GradientLimit(properties);
+        Gauge.builder(LIMIT, limit, GradientLimit::getLimit).register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, meterRegistry.counter(REJECTED, "priority", priority.name().toLowerCase()));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || !request.getPath().value().startsWith("/api/")) {
+            return chain.filter(exchange);
+        }
+        Priority priority = priority(request);
+        return Mono.defer(() -> {
+            int inFlight = limit.tryAcquire(share(priority));
+            if (inFlight == 0) {
+                rejected.get(priority).increment();
+                return reject(exchange.getResponse());
+            }
+            long start = System.nanoTime();
+            return chain.filter(exchange).doFinally(signal -> {
+                limit.release();
+                if (signal != SignalType.CANCEL && priority != Priority.BULK) {
+                    limit.onSample(System.nanoTime() - start, inFlight);
+                }
+            });
+        });
+    }
+
+    private static Priority priority(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        if (path.endsWith("/stream") || path.endsWith("/batch")) {
+            return Priority.BULK;
+        }
+        HttpMethod method = request.getMethod();
+        return method == HttpMethod.GET || method == HttpMethod.HEAD ? Priority.READ : Priority.WRITE;
+    }
+
+    private double share(Priority priority) {
+        switch (priority) {
+            case WRITE:
+                return properties.getWriteShare();
+            case BULK:
+                return properties.getBulkShare();
+            default:
+                return 1.0;
+        }
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, properties.getRetryAfter().getSeconds())));
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,80 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows latency. A fast average tracks the latency of recent requests, a slow one the
+ * latency the service normally has; while the fast one stays within {@link #TOLERANCE} of the slow one the limit
+ * grows by its square root, and beyond that it shrinks in proportion, down to half per step. The limit only grows
+ * while at least half of it is used, so a quiet service does not talk itself into a limit it never tested.
+ */
+class GradientLimit {
+
+    static final double TOLERANCE = 1.5;
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 0.01;
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    GradientLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * Takes a slot if fewer than {@code share} of the limit are in use and returns the number now in flight, or
+     * {@code 0} when the request should be turned away.
+     */
+    int tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                return 0;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return current + 1;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Feeds the latency of a completed request that was admitted with {@code inFlight} requests running.
+     */
+    synchronized void onSample(long rttNanos, int inFlight) {
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt += (rttNanos - longRtt) * LONG_WEIGHT;
+        if (longRtt > 2 * shortRtt) {
+            // after an overload the slow average lags far behind; let it catch up with the recovered latency
+            longRtt *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+
+    double getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,41 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * Gauges the requests currently being handled, per API version.
+ */
+@Component
+public class InFlightRequestsWebFilter implements WebFilter {
+
+    static final String IN_FLIGHT = "http.server.requests.in.flight";
+
+    private final AtomicInteger v1 = new AtomicInteger();
+    private final AtomicInteger v2 = new AtomicInteger();
+    private final AtomicInteger other = new AtomicInteger();
+
+    public InFlightRequestsWebFilter(MeterRegistry meterRegistry) {
+        Gauge.builder(IN_FLIGHT, v1, AtomicInteger::get).tag("api", "v1").register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, v2, AtomicInteger::get).tag("api", "v2").register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, other, AtomicInteger::get).tag("api", "other").register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+        AtomicInteger inFlight = path.startsWith("/api/v1/") ? v1 : path.startsWith("/api/v2/") ? v2 : other;
+        return Mono.defer(() -> {
+            inFlight.incrementAndGet();
+            return chain.filter(exchange).doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+}
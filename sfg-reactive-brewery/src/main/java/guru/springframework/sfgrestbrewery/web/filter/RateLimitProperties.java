@@ -0,0 +1,63 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Off unless turned on: the limits are per client, and a single host running a load test or many users behind
+     * one address would otherwise be answered with 429s at rates the service handles easily.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Header identifying the client; requests without it are limited per remote address.
+     */
+    private String apiKeyHeader = "X-API-Key";
+
+    /**
+     * Most buckets kept at once. Past it the least recently used client starts over with a full bucket.
+     */
+    private long maxClients = 100_000;
+
+    /**
+     * How long an unused bucket is kept. Longer than a bucket takes to refill, dropping it loses nothing.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Limited routes, the first match wins. Requests no route matches are not limited.
+     */
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+
+        private String name;
+
+        /**
+         * Path pattern, such as {@code /api/*}{@code /beer}.
+         */
+        private String path;
+
+        /**
+         * Only match requests carrying this query parameter, if set.
+         */
+        private String queryParam;
+
+        /**
+         * Burst size: requests a client may make at once.
+         */
+        private int capacity;
+
+        private double refillPerSecond;
+    }
+}
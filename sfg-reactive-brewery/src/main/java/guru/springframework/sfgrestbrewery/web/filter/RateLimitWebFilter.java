@@ -0,0 +1,130 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Token-bucket rate limit per client and route, so one client cannot use up the service for everyone else. A client
+ * is its API key when it sends one and its remote address otherwise; the key is not verified here, so limiting by
+ * key is only as strong as whatever checks the keys. Every limited response carries {@code X-RateLimit-Limit},
+ * {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset} (seconds until the bucket is full); a request over
+ * the limit gets a 429 with {@code Retry-After}.
+ * <p>
+ * Buckets live in a bounded Caffeine cache that drops idle clients, so a flood of addresses cannot exhaust memory
+ * and a hit costs a concurrent map read plus one compare-and-set.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitWebFilter implements WebFilter {
+
+    static final String LIMITED = "http.server.requests.rate.limited";
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    private final RateLimitProperties properties;
+    private final List<Route> routes;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitWebFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.routes = properties.getRoutes().stream()
+            .map(route -> new Route(route, PathPatternParser.defaultInstance.parse(route.getPath()),
+                meterRegistry.counter(LIMITED, "route", route.getName())))
+            .collect(Collectors.toList());
+        this.buckets = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+            .maximumSize(properties.getMaxClients())
+            .expireAfterAccess(properties.getIdleTimeout())
+            .recordStats()
+            .build(), "rateLimitBuckets");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = properties.isEnabled() ? route(request) : null;
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        TokenBucket bucket = buckets.get(route.config.getName() + '|' + client(request),
+            key -> new TokenBucket(route.config.getCapacity(), route.config.getRefillPerSecond(), System.nanoTime()));
+        long remaining = bucket.tryConsume(System.nanoTime());
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(LIMIT_HEADER, String.valueOf(bucket.getCapacity()));
+        headers.set(REMAINING_HEADER, String.valueOf(Math.max(remaining, 0)));
+        headers.set(RESET_HEADER, String.valueOf(seconds(bucket.nanosUntilFull(Math.max(remaining, 0)))));
+        if (remaining >= 0) {
+            return chain.filter(exchange);
+        }
+
+        route.limited.increment();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds(-remaining)));
+        return response.setComplete();
+    }
+
+    private Route route(ServerHttpRequest request) {
+        for (Route route : routes) {
+            if (route.pattern.matches(request.getPath().pathWithinApplication())
+                && (route.config.getQueryParam() == null || request.getQueryParams().containsKey(route.config.getQueryParam()))) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private String client(ServerHttpRequest request) {
+        String apiKey = request.getHeaders().getFirst(properties.getApiKeyHeader());
+        if (StringUtils.hasText(apiKey)) {
+            return "key:" + apiKey;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return "ip:" + (remoteAddress != null && remoteAddress.getAddress() != null
+            ? remoteAddress.getAddress().getHostAddress()
+            : "unknown");
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static final class Route {
+
+        private final RateLimitProperties.Route config;
+        private final PathPattern pattern;
+        private final Counter limited;
+
+        private Route(RateLimitProperties.Route config, PathPattern pattern, Counter limited) {
+            this.config = config;
+            this.pattern = pattern;
+            this.limited = limited;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single timestamp (the generic cell rate algorithm): the time at which the bucket would be
+ * full again if no more tokens were taken. Taking a token is one compare-and-set, with no lock and no allocation.
+ */
+final class TokenBucket {
+
+    private final int capacity;
+    private final long nanosPerToken;
+    private final AtomicLong fullAt;
+
+    TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token and returns the number left, or, when the bucket is empty, takes nothing and returns minus the
+     * nanoseconds until the next token.
+     */
+    long tryConsume(long nowNanos) {
+        long burst = nanosPerToken * capacity;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + nanosPerToken;
+            long backlog = next - nowNanos;
+            if (backlog > burst) {
+                return -(backlog - burst);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return (burst - backlog) / nanosPerToken;
+            }
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Nanoseconds until a bucket with {@code remaining} tokens is full again.
+     */
+    long nanosUntilFull(long remaining) {
+        return (capacity - remaining) * nanosPerToken;
+    }
+}
@@ -0,0 +1,15 @@
+package guru.springframework.sfgrestbrewery.web.functional;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "sfg.brewery.batch")
+public class BeerBatchProperties {
+
+    /**
+     * Number of uploaded beers written per multi-row insert.
+     */
+    private int size = 500;
+}
@@ -1,13 +1,37 @@
 package guru.springframework.sfgrestbrewery.web.functional;
 
+import guru.springframework.sfgrestbrewery.cache.BeerResponseCache;
+import guru.springframework.sfgrestbrewery.inventory.InsufficientInventoryException;
 import guru.springframework.sfgrestbrewery.services.BeerService;
 import guru.springframework.sfgrestbrewery.web.controller.NotFoundException;
+import guru.springframework.sfgrestbrewery.web.model.BeerBatchResult;
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerInventoryDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerRepresentation;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
@@ -20,24 +44,119 @@ import org.springframework.web.server.ServerWebInputException;
 @Component
 @RequiredArgsConstructor
 public class BeerHandlerV2 {
+    private static final int DEFAULT_PAGE_NUMBER = 0;
+    private static final int DEFAULT_PAGE_SIZE = 25;
+    private static final int MAX_IDS = 100;
+
     private final BeerService beerService;
     private final Validator validator;
+    private final BeerBatchProperties batchProperties;
+    private final BeerResponseCache responseCache;
+
+    public Mono<ServerResponse> listBeers(ServerRequest request) {
+        int pageNumber = queryParam(request, "pageNumber", Integer::valueOf).filter(number -> number >= 0).orElse(DEFAULT_PAGE_NUMBER);
+        int pageSize = queryParam(request, "pageSize", Integer::valueOf).filter(size -> size >= 1).orElse(DEFAULT_PAGE_SIZE);
+        String beerName = request.queryParam("beerName").orElse(null);
+        BeerStyleEnum beerStyle = queryParam(request, "beerStyle", BeerStyleEnum::valueOf).orElse(null);
+        BeerCursor cursor = queryParam(request, "cursor", BeerCursor::decode).orElse(null);
+        Boolean withTotal = request.queryParam("withTotal").map(Boolean::valueOf).orElse(null);
+        boolean rank = Boolean.parseBoolean(request.queryParam("rank").orElse("false"));
+        Boolean showInventory = Boolean.valueOf(request.queryParam("showInventory").orElse("false"));
+        Sort sort = sort(request, rank);
+        if (cursor != null && !BeerSort.isIdOrder(sort)) {
+            throw new ServerWebInputException("cursor can only page through id order");
+        }
+        PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, sort);
+
+        MediaType mediaType = bodyType(request, BeerRouterConfig.PAGE_TYPES);
+
+        return beerService.listBeers(beerName, beerStyle, pageRequest, cursor, withTotal, showInventory)
+            .flatMap(beerPagedList -> conditionalOk(request, mediaType, BeerRepresentation.eTag(beerPagedList, mediaType), null,
+                beerPagedList, !showInventory));
+    }
+
+    /**
+     * Streams the catalog as server-sent events when the client accepts {@code text/event-stream}, otherwise as
+     * newline-delimited JSON. Nothing is collected, so memory stays flat however large the catalog is.
+     */
+    public Mono<ServerResponse> streamBeers(ServerRequest request) {
+        String beerName = request.queryParam("beerName").orElse(null);
+        BeerStyleEnum beerStyle = queryParam(request, "beerStyle", BeerStyleEnum::valueOf).orElse(null);
+        BeerCursor cursor = queryParam(request, "cursor", BeerCursor::decode).orElse(null);
+        Boolean showInventory = Boolean.valueOf(request.queryParam("showInventory").orElse("false"));
+        MediaType mediaType = request.headers().accept().stream().anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype)
+            ? MediaType.TEXT_EVENT_STREAM
+            : MediaType.APPLICATION_NDJSON;
+
+        return ServerResponse.ok()
+            .contentType(mediaType)
+            .body(beerService.streamBeers(beerName, beerStyle, cursor, showInventory), BeerDto.class);
+    }
 
     public Mono<ServerResponse> getBeerById(ServerRequest request) {
-        Integer beerId = Integer.valueOf(request.pathVariable("beerId"));
+        Integer beerId = beerId(request);
         Boolean showInventory = Boolean.valueOf(request.queryParam("showInventory").orElse("false"));
         return beerService.getById(beerId, showInventory)
-            .flatMap(beerDto -> ServerResponse.ok().bodyValue(beerDto))
+            .flatMap(beerDto -> beerResponse(request, beerDto))
             .switchIfEmpty(ServerResponse.notFound().build());
     }
 
+    /**
+     * Sends the beers named by {@code ids}, a comma separated list, in the order given. Unknown ids are left out
+     * rather than failing the request.
+     */
+    public Mono<ServerResponse> getBeersByIds(ServerRequest request) {
+        List<Integer> beerIds = beerIds(request);
+        Boolean showInventory = Boolean.valueOf(request.queryParam("showInventory").orElse("false"));
+        MediaType mediaType = bodyType(request, BeerRouterConfig.BODY_TYPES);
+        return beerService.getByIds(beerIds, showInventory)
+            .collectList()
+            .flatMap(beers -> ServerResponse.ok().contentType(mediaType).bodyValue(beers));
+    }
+
+    /**
+     * The route only matches digits, but they can still be too many for an id.
+     */
+    private static Integer beerId(ServerRequest request) {
+        try {
+            return Integer.valueOf(request.pathVariable("beerId"));
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid beer id " + request.pathVariable("beerId"));
+        }
+    }
+
+    private static List<Integer> beerIds(ServerRequest request) {
+        List<Integer> beerIds = new ArrayList<>();
+        for (String ids : request.queryParams().getOrDefault("ids", Collections.emptyList())) {
+            for (String id : ids.split(",")) {
+                if (!id.isBlank()) {
+                    try {
+                        beerIds.add(Integer.valueOf(id.trim()));
+                    } catch (NumberFormatException e) {
+                        throw new ServerWebInputException("Invalid value for query parameter ids");
+                    }
+                }
+            }
+        }
+        if (beerIds.isEmpty() || beerIds.size() > MAX_IDS) {
+            throw new ServerWebInputException("ids must list between 1 and " + MAX_IDS + " beer ids");
+        }
+        return beerIds;
+    }
+
     public Mono<ServerResponse> getBeerByUpc(ServerRequest request) {
         String beerUpc = request.pathVariable("upc");
         return beerService.getByUpc(beerUpc)
-            .flatMap(beerDto -> ServerResponse.ok().bodyValue(beerDto))
+            .flatMap(beerDto -> beerResponse(request, beerDto))
             .switchIfEmpty(ServerResponse.notFound().build());
     }
 
+    private Mono<ServerResponse> beerResponse(ServerRequest request, BeerDto beerDto) {
+        MediaType mediaType = bodyType(request, BeerRouterConfig.BODY_TYPES);
+        return conditionalOk(request, mediaType, BeerRepresentation.eTag(beerDto, mediaType), BeerRepresentation.lastModified(beerDto),
+            beerDto, beerDto.getQuantityOnHand() == null);
+    }
+
     public Mono<ServerResponse> saveNewBeer(ServerRequest request) {
         Mono<BeerDto> beerDto = request.bodyToMono(BeerDto.class).doOnNext(this::validate);
         return beerService.saveNewBeer(beerDto)
@@ -46,25 +165,155 @@ public class BeerHandlerV2 {
                 .build());
     }
 
+    /**
+     * Saves an NDJSON stream of beers in batches and streams back one {@link BeerBatchResult} per item. Invalid
+     * items are rejected individually; a failed insert rejects every item of its batch.
+     */
+    public Mono<ServerResponse> saveNewBeers(ServerRequest request) {
+        Flux<BeerBatchResult> results = request.bodyToFlux(BeerDto.class)
+            .index()
+            .buffer(batchProperties.getSize())
+            .concatMap(this::saveBatch);
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(results, BeerBatchResult.class);
+    }
+
+    private Flux<BeerBatchResult> saveBatch(List<Tuple2<Long, BeerDto>> batch) {
+        List<BeerBatchResult> rejected = new ArrayList<>();
+        List<Long> indexes = new ArrayList<>();
+        List<BeerDto> beerDtos = new ArrayList<>();
+        for (Tuple2<Long, BeerDto> item : batch) {
+            Errors errors = validationErrors(item.getT2());
+            if (errors.hasErrors()) {
+                rejected.add(BeerBatchResult.rejected(item.getT1(), errors.getFieldErrors().stream()
+                    .map(error -> error.getField() + " : " + error.getDefaultMessage())
+                    .collect(Collectors.toList())));
+            } else {
+                indexes.add(item.getT1());
+                beerDtos.add(item.getT2());
+            }
+        }
+        if (beerDtos.isEmpty()) {
+            return Flux.fromIterable(rejected);
+        }
+
+        Mono<List<BeerBatchResult>> saved = beerService.saveNewBeers(beerDtos)
+            .index()
+            .map(savedBeer -> BeerBatchResult.saved(indexes.get(savedBeer.getT1().intValue()), savedBeer.getT2().getId()))
+            .collectList()
+            .onErrorResume(error -> {
+                log.warn("Batch insert of {} beers failed", beerDtos.size(), error);
+                List<String> errors = Collections.singletonList(String.valueOf(error.getMessage()));
+                return Mono.just(indexes.stream().map(index -> BeerBatchResult.rejected(index, errors)).collect(Collectors.toList()));
+            });
+        return Flux.fromIterable(rejected).concatWith(saved.flatMapIterable(results -> results));
+    }
+
     public Mono<ServerResponse> updateBeer(ServerRequest request) {
-        Integer beerId = Integer.valueOf(request.pathVariable("beerId"));
+        Integer beerId = beerId(request);
         return request.bodyToMono(BeerDto.class).doOnNext(this::validate)
             .flatMap(beerDto -> beerService.updateBeer(beerId, beerDto))
-            .flatMap(updatedBeer -> updatedBeer.getId() != null ? ServerResponse.noContent().build() : ServerResponse.notFound().build());
+            .flatMap(updatedBeer -> updatedBeer.getId() != null ? ServerResponse.noContent().build() : ServerResponse.notFound().build())
+            .onErrorResume(OptimisticLockingFailureException.class, error -> ServerResponse.status(HttpStatus.CONFLICT).build());
+    }
+
+    public Mono<ServerResponse> reserveInventory(ServerRequest request) {
+        Integer beerId = beerId(request);
+        return inventoryResponse(request, beerId, beerService.reserveInventory(beerId, quantity(request)));
+    }
+
+    public Mono<ServerResponse> releaseInventory(ServerRequest request) {
+        Integer beerId = beerId(request);
+        return inventoryResponse(request, beerId, beerService.releaseInventory(beerId, quantity(request)));
+    }
+
+    private Mono<ServerResponse> inventoryResponse(ServerRequest request, Integer beerId, Mono<Long> quantityOnHand) {
+        return quantityOnHand
+            .flatMap(onHand -> ServerResponse.ok().contentType(bodyType(request, BeerRouterConfig.BODY_TYPES))
+                .bodyValue(new BeerInventoryDto(beerId, onHand)))
+            .onErrorResume(NotFoundException.class, error -> ServerResponse.notFound().build())
+            .onErrorResume(InsufficientInventoryException.class, error -> ServerResponse.status(HttpStatus.CONFLICT).build());
+    }
+
+    private static int quantity(ServerRequest request) {
+        return queryParam(request, "quantity", Integer::valueOf)
+            .filter(quantity -> quantity > 0)
+            .orElseThrow(() -> new ServerWebInputException("quantity must be a positive number"));
     }
 
     public Mono<ServerResponse> deleteById(ServerRequest request) {
-        Integer beerId = Integer.valueOf(request.pathVariable("beerId"));
+        Integer beerId = beerId(request);
         return beerService.reactiveDeleteById(beerId)
             .flatMap(monoVoid -> ServerResponse.ok().build())
             .onErrorResume(error -> error instanceof NotFoundException, error -> ServerResponse.notFound().build());
     }
 
+    /**
+     * Answers 304 when the client's copy is current, otherwise sends the body with its validators. The body is only
+     * encoded in the second case, and only once per ETag when it is {@code cacheable}: bodies without live stock are
+     * written from {@link BeerResponseCache}, gzipped if the client accepts it.
+     */
+    private Mono<ServerResponse> conditionalOk(ServerRequest request, MediaType mediaType, String eTag, Instant lastModified,
+                                               Object body, boolean cacheable) {
+        Mono<ServerResponse> notModified = lastModified != null
+            ? request.checkNotModified(lastModified, eTag)
+            : request.checkNotModified(eTag);
+        return notModified.switchIfEmpty(Mono.defer(() -> {
+            ServerResponse.BodyBuilder response = ServerResponse.ok()
+                .contentType(mediaType)
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT);
+            if (lastModified != null) {
+                response.lastModified(lastModified);
+            }
+            if (!cacheable || !responseCache.isEnabled()) {
+                return response.bodyValue(body);
+            }
+            BeerResponseCache.EncodedBody encoded = responseCache.get(eTag, body, mediaType);
+            boolean gzip = encoded.isCompressible() && BeerResponseCache.acceptsGzip(request.headers().asHttpHeaders());
+            if (encoded.isCompressible()) {
+                response.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            byte[] bytes = encoded.getBytes(gzip);
+            return response.contentLength(bytes.length)
+                .body((message, context) -> message.writeWith(Mono.fromSupplier(() -> message.bufferFactory().wrap(bytes))));
+        }));
+    }
+
+    private static MediaType bodyType(ServerRequest request, List<MediaType> producible) {
+        return BeerRepresentation.negotiate(request.headers().accept(), producible);
+    }
+
+    private static <T> Optional<T> queryParam(ServerRequest request, String name, Function<String, T> converter) {
+        try {
+            return request.queryParam(name).map(converter);
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException("Invalid value for query parameter " + name);
+        }
+    }
+
+    private static Sort sort(ServerRequest request, boolean rank) {
+        try {
+            return BeerSort.parse(request.queryParams().getOrDefault("sort", List.of()), rank);
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException(e.getMessage());
+        }
+    }
+
     private void validate(BeerDto beerDto) {
-        Errors errors = new BeanPropertyBindingResult(beerDto, "beerDto");
-        validator.validate(beerDto, errors);
+        Errors errors = validationErrors(beerDto);
         if (errors.hasErrors()) {
             throw new ServerWebInputException(errors.toString());
         }
     }
+
+    private Errors validationErrors(BeerDto beerDto) {
+        Errors errors = new BeanPropertyBindingResult(beerDto, "beerDto");
+        validator.validate(beerDto, errors);
+        return errors;
+    }
 }
@@ -1,27 +1,64 @@
 package guru.springframework.sfgrestbrewery.web.functional;
 
+import guru.springframework.sfgrestbrewery.config.CodecConfig;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 
 @Configuration
+@EnableConfigurationProperties(BeerBatchProperties.class)
 public class BeerRouterConfig {
 
     public static final String BEER_V2_URL = "/api/v2/beer";
+    public static final String BEER_V2_STREAM_URL = BEER_V2_URL + "/stream";
+    public static final String BEER_V2_BATCH_URL = BEER_V2_URL + "/batch";
+
+    /**
+     * Beer ids are digits only, so paths like {@code /stream} never fall through to the id routes.
+     */
+    private static final String BEER_V2_ID_URL = BEER_V2_URL + "/{beerId:\\d+}";
+
+    /**
+     * Body types of the v2 endpoints, JSON first as the default. The binary ones are meant for other services.
+     */
+    public static final List<MediaType> BODY_TYPES = List.of(APPLICATION_JSON, APPLICATION_CBOR, CodecConfig.APPLICATION_SMILE);
+    public static final List<MediaType> PAGE_TYPES = List.of(APPLICATION_JSON, BeerPagedList.COMPACT_JSON, APPLICATION_CBOR,
+        CodecConfig.APPLICATION_SMILE);
 
     @Bean
     public RouterFunction<ServerResponse> beerRoutesV2(BeerHandlerV2 handler) {
+        RequestPredicate acceptsBody = accept(BODY_TYPES.toArray(new MediaType[0]));
         return route()
-            .GET(BEER_V2_URL + "/{beerId}", accept(APPLICATION_JSON), handler::getBeerById)
-            .GET(BEER_V2_URL + "/beerUpc/{upc}", accept(APPLICATION_JSON), handler::getBeerByUpc)
-            .POST(BEER_V2_URL, accept(APPLICATION_JSON), handler::saveNewBeer)
-            .PUT(BEER_V2_URL + "/{beerId}", accept(APPLICATION_JSON), handler::updateBeer)
-            .DELETE(BEER_V2_URL + "/{beerId}", accept(APPLICATION_JSON), handler::deleteById)
+            .GET(BEER_V2_URL, queryParam("ids", ids -> true).and(acceptsBody), handler::getBeersByIds)
+            .GET(BEER_V2_URL, accept(PAGE_TYPES.toArray(new MediaType[0])), handler::listBeers)
+            .GET(BEER_V2_STREAM_URL, accept(APPLICATION_NDJSON, TEXT_EVENT_STREAM), handler::streamBeers)
+            .GET(BEER_V2_STREAM_URL, request -> ServerResponse.status(HttpStatus.NOT_ACCEPTABLE).build())
+            .GET(BEER_V2_ID_URL, acceptsBody, handler::getBeerById)
+            .GET(BEER_V2_URL + "/beerUpc/{upc}", acceptsBody, handler::getBeerByUpc)
+            .POST(BEER_V2_BATCH_URL, contentType(APPLICATION_NDJSON), handler::saveNewBeers)
+            .POST(BEER_V2_ID_URL + "/reserve", acceptsBody, handler::reserveInventory)
+            .POST(BEER_V2_ID_URL + "/release", acceptsBody, handler::releaseInventory)
+            .POST(BEER_V2_URL, acceptsBody, handler::saveNewBeer)
+            .PUT(BEER_V2_ID_URL, acceptsBody, handler::updateBeer)
+            .DELETE(BEER_V2_ID_URL, acceptsBody, handler::deleteById)
             .build();
     }
 }
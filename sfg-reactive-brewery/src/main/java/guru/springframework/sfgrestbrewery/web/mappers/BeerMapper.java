@@ -10,9 +10,12 @@ import org.mapstruct.Mapping;
 public interface BeerMapper {
 
     @Mapping(target = "quantityOnHand", ignore = true)
+    @Mapping(target = "lastUpdatedDate", source = "lastModifiedDate")
     BeerDto beerToBeerDto(Beer beer);
 
+    @Mapping(target = "lastUpdatedDate", source = "lastModifiedDate")
     BeerDto beerToBeerDtoWithInventory(Beer beer);
 
+    @Mapping(target = "version", ignore = true)
     Beer beerDtoToBeer(BeerDto dto);
 }
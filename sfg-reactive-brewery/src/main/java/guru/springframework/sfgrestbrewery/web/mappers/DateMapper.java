@@ -10,9 +10,7 @@ import org.springframework.stereotype.Component;
 public class DateMapper {
     public OffsetDateTime asOffsetDateTime(Timestamp ts) {
         if (ts != null) {
-            return OffsetDateTime.of(ts.toLocalDateTime().getYear(), ts.toLocalDateTime().getMonthValue(),
-                ts.toLocalDateTime().getDayOfMonth(), ts.toLocalDateTime().getHour(), ts.toLocalDateTime().getMinute(),
-                ts.toLocalDateTime().getSecond(), ts.toLocalDateTime().getNano(), ZoneOffset.UTC);
+            return OffsetDateTime.of(ts.toLocalDateTime(), ZoneOffset.UTC);
         } else {
             return null;
         }
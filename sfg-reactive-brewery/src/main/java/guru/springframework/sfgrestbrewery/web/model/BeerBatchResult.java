@@ -0,0 +1,33 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch upload: the generated id when it was saved, otherwise the reasons it was not.
+ * {@code index} is the item's zero-based position in the uploaded stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerBatchResult {
+
+    private long index;
+
+    private Integer id;
+
+    private List<String> errors;
+
+    public static BeerBatchResult saved(long index, Integer id) {
+        return new BeerBatchResult(index, id, null);
+    }
+
+    public static BeerBatchResult rejected(long index, List<String> errors) {
+        return new BeerBatchResult(index, null, errors);
+    }
+}
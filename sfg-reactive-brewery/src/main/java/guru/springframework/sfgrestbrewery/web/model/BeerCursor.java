@@ -0,0 +1,37 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import lombok.Value;
+
+/**
+ * Opaque keyset position for {@code listBeers}: the id of the last beer on the previous page.
+ */
+@Value
+public class BeerCursor {
+    Integer lastId;
+
+    public static BeerCursor after(Integer lastId) {
+        return new BeerCursor(lastId);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor written by {@link #encode()}; {@code null} for none, {@link IllegalArgumentException} for one
+     * that is not.
+     */
+    public static BeerCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BeerCursor(Integer.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class BeerDto {
     @Null
     private Integer id;
 
+    private Long version;
+
     @NotBlank
     private String beerName;
 
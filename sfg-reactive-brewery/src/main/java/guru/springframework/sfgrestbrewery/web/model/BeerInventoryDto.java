@@ -0,0 +1,17 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerInventoryDto {
+
+    private Integer beerId;
+
+    private Long quantityOnHand;
+}
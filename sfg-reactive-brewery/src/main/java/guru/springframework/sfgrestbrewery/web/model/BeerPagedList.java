@@ -10,11 +10,21 @@ import java.util.List;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 
 public class BeerPagedList extends PageImpl<BeerDto> implements Serializable {
 
     static final long serialVersionUID = 1114715135625836949L;
 
+    /**
+     * Media type of the compact wire format written by {@link BeerPagedListModule}: content, page number, size,
+     * total and next cursor only. Plain {@code application/json} keeps the {@code PageImpl} layout.
+     */
+    public static final String COMPACT_JSON_VALUE = "application/vnd.sfg.page+json";
+    public static final MediaType COMPACT_JSON = MediaType.valueOf(COMPACT_JSON_VALUE);
+
+    private final String nextCursor;
+
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
     public BeerPagedList(@JsonProperty("content") List<BeerDto> content,
                          @JsonProperty("number") int number,
@@ -25,16 +35,31 @@ public class BeerPagedList extends PageImpl<BeerDto> implements Serializable {
                          @JsonProperty("totalPages") int totalPages,
                          @JsonProperty("sort") JsonNode sort,
                          @JsonProperty("first") boolean first,
-                         @JsonProperty("numberOfElements") int numberOfElements) {
+                         @JsonProperty("numberOfElements") int numberOfElements,
+                         @JsonProperty("nextCursor") String nextCursor) {
 
         super(content, PageRequest.of(number, size), totalElements);
+        this.nextCursor = nextCursor;
     }
 
-    public BeerPagedList(List<BeerDto> content, Pageable pageable, long total) {
+    public BeerPagedList(List<BeerDto> content, Pageable pageable, long total, String nextCursor) {
         super(content, pageable, total);
+        this.nextCursor = nextCursor;
+    }
+
+    public BeerPagedList(List<BeerDto> content, Pageable pageable, long total) {
+        this(content, pageable, total, null);
     }
 
     public BeerPagedList(List<BeerDto> content) {
         super(content);
+        this.nextCursor = null;
+    }
+
+    /**
+     * Cursor for the page after this one, or {@code null} when this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
     }
 }
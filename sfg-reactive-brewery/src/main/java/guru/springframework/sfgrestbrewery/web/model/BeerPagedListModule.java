@@ -0,0 +1,138 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Jackson module for the {@link BeerPagedList#COMPACT_JSON compact} page format:
+ * <pre>
+ * {"content":[...],"number":0,"size":25,"totalElements":120,"nextCursor":"MjU"}
+ * </pre>
+ * Both directions stream the page field by field, so neither the {@code pageable}/{@code sort} trees of the
+ * {@code PageImpl} layout nor the {@code JsonNode}s its creator reads them into are ever built. {@code nextCursor}
+ * is left out on the last page; unknown fields are skipped when reading.
+ */
+public class BeerPagedListModule extends SimpleModule {
+
+    private static final String CONTENT = "content";
+    private static final String NUMBER = "number";
+    private static final String SIZE = "size";
+    private static final String TOTAL_ELEMENTS = "totalElements";
+    private static final String NEXT_CURSOR = "nextCursor";
+
+    public BeerPagedListModule() {
+        super(BeerPagedListModule.class.getSimpleName());
+        addSerializer(BeerPagedList.class, new Serializer());
+        addDeserializer(BeerPagedList.class, new Deserializer());
+    }
+
+    private static final class Serializer extends StdSerializer<BeerPagedList> {
+
+        private Serializer() {
+            super(BeerPagedList.class);
+        }
+
+        @Override
+        public void serialize(BeerPagedList page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            JsonSerializer<Object> beerSerializer = provider.findValueSerializer(BeerDto.class);
+            List<BeerDto> content = page.getContent();
+
+            gen.writeStartObject(page);
+            gen.writeFieldName(CONTENT);
+            gen.writeStartArray(content, content.size());
+            for (BeerDto beerDto : content) {
+                if (beerDto == null) {
+                    gen.writeNull();
+                } else {
+                    beerSerializer.serialize(beerDto, gen, provider);
+                }
+            }
+            gen.writeEndArray();
+            gen.writeNumberField(NUMBER, page.getNumber());
+            gen.writeNumberField(SIZE, page.getSize());
+            gen.writeNumberField(TOTAL_ELEMENTS, page.getTotalElements());
+            if (page.getNextCursor() != null) {
+                gen.writeStringField(NEXT_CURSOR, page.getNextCursor());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    private static final class Deserializer extends StdDeserializer<BeerPagedList> {
+
+        private Deserializer() {
+            super(BeerPagedList.class);
+        }
+
+        @Override
+        public BeerPagedList deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartObjectToken()) {
+                return (BeerPagedList) ctxt.handleUnexpectedToken(BeerPagedList.class, p);
+            }
+            List<BeerDto> content = Collections.emptyList();
+            int number = 0;
+            int size = 0;
+            long totalElements = -1;
+            String nextCursor = null;
+
+            for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case CONTENT:
+                        content = readContent(p, ctxt);
+                        break;
+                    case NUMBER:
+                        number = p.getValueAsInt();
+                        break;
+                    case SIZE:
+                        size = p.getValueAsInt();
+                        break;
+                    case TOTAL_ELEMENTS:
+                        totalElements = p.getValueAsLong(-1);
+                        break;
+                    case NEXT_CURSOR:
+                        nextCursor = value == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+                        break;
+                    default:
+                        p.skipChildren();
+                }
+            }
+
+            if (size < 1) {
+                return new BeerPagedList(content);
+            }
+            return new BeerPagedList(content, PageRequest.of(number, size),
+                totalElements >= 0 ? totalElements : (long) number * size + content.size(), nextCursor);
+        }
+
+        private List<BeerDto> readContent(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_NULL) {
+                return Collections.emptyList();
+            }
+            if (!p.isExpectedStartArrayToken()) {
+                ctxt.handleUnexpectedToken(List.class, p);
+            }
+            JsonDeserializer<Object> beerDeserializer = ctxt.findRootValueDeserializer(ctxt.constructType(BeerDto.class));
+            List<BeerDto> content = new ArrayList<>();
+            for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+                content.add(token == JsonToken.VALUE_NULL ? null : (BeerDto) beerDeserializer.deserialize(p, ctxt));
+            }
+            return content;
+        }
+    }
+}
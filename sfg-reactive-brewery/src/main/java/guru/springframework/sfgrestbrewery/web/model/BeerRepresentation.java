@@ -0,0 +1,85 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Picks the media type a beer or page is sent as and computes the validators of that representation.
+ * <p>
+ * A beer's ETag is its id and version, plus the quantity on hand when the response carries one, because inventory
+ * changes do not bump the version. A page's ETag is a digest of the same for every beer on it, together with its
+ * position, total and next cursor. Either way it is cheap to compute from the cached DTOs. Types other than plain JSON
+ * are added to the ETag, so every representation has its own strong validator.
+ */
+public final class BeerRepresentation {
+
+    private BeerRepresentation() {
+    }
+
+    /**
+     * The first of {@code producible} the client names in its Accept header, by quality, or the first producible
+     * type when it names none of them, as when it accepts anything.
+     */
+    public static MediaType negotiate(List<MediaType> accepted, List<MediaType> producible) {
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType mediaType : sorted) {
+            for (MediaType candidate : producible) {
+                if (candidate.equalsTypeAndSubtype(mediaType)) {
+                    return candidate;
+                }
+            }
+        }
+        return producible.get(0);
+    }
+
+    public static String eTag(BeerDto beer, MediaType mediaType) {
+        StringBuilder eTag = new StringBuilder();
+        appendBeer(eTag, beer);
+        return withVariant(eTag, mediaType);
+    }
+
+    public static String eTag(BeerPagedList page, MediaType mediaType) {
+        StringBuilder state = new StringBuilder()
+            .append(page.getNumber()).append('/').append(page.getSize()).append('/').append(page.getTotalElements())
+            .append('/').append(page.getNextCursor());
+        for (BeerDto beer : page.getContent()) {
+            appendBeer(state.append(';'), beer);
+        }
+        StringBuilder eTag = new StringBuilder(DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)));
+        return withVariant(eTag, mediaType);
+    }
+
+    /**
+     * When the beer last changed, or {@code null} when that is unknown or the representation includes live stock,
+     * which is not dated. Pages have no Last-Modified: beers joining or leaving a page would not move it.
+     */
+    public static Instant lastModified(BeerDto beer) {
+        if (beer.getQuantityOnHand() != null) {
+            return null;
+        }
+        LocalDateTime modified = beer.getLastUpdatedDate() != null ? beer.getLastUpdatedDate() : beer.getCreatedDate();
+        return modified != null ? modified.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+
+    private static void appendBeer(StringBuilder eTag, BeerDto beer) {
+        eTag.append(beer.getId()).append('-').append(beer.getVersion());
+        if (beer.getQuantityOnHand() != null) {
+            eTag.append('-').append(beer.getQuantityOnHand());
+        }
+    }
+
+    private static String withVariant(StringBuilder eTag, MediaType mediaType) {
+        if (mediaType != null && !MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)) {
+            eTag.append('+').append(mediaType.getSubtype());
+        }
+        return eTag.toString();
+    }
+}
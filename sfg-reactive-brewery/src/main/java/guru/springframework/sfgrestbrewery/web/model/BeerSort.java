@@ -0,0 +1,94 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * The {@code sort} parameter of {@code listBeers}: each value is a property, optionally followed by {@code ,asc} or
+ * {@code ,desc}, and repeated values sort by each in turn. Ties are always broken by id, in the direction of the
+ * last property, so every order is total and pages never overlap. Only id order can be paged by cursor.
+ */
+public final class BeerSort {
+
+    public static final String ID = "id";
+    public static final String PRICE = "price";
+    public static final String NAME = "beerName";
+    public static final String LAST_MODIFIED = "lastModifiedDate";
+
+    /**
+     * Best match first; only orders {@code beerName} searches and cannot be combined with other properties.
+     */
+    public static final String RELEVANCE = "relevance";
+
+    public static final int MAX_PROPERTIES = 3;
+
+    private static final Set<String> PROPERTIES = Set.of(ID, PRICE, NAME, LAST_MODIFIED, RELEVANCE);
+
+    private BeerSort() {
+    }
+
+    /**
+     * Parses the values of the {@code sort} parameter, with {@code rank} standing for {@code sort=relevance}.
+     *
+     * @throws IllegalArgumentException if a value is not a sortable property and direction, or the values do not
+     * combine into one order
+     */
+    public static Sort parse(List<String> values, boolean rank) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String value : values) {
+            String[] parts = value.split(",", -1);
+            String property = parts[0].trim();
+            if (parts.length > 2 || !PROPERTIES.contains(property)) {
+                throw new IllegalArgumentException("Invalid sort: " + value + ", sortable properties are " + PROPERTIES);
+            }
+            Sort.Direction direction = parts.length == 2
+                ? Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid sort direction: " + value))
+                : Sort.Direction.ASC;
+            if (orders.stream().anyMatch(order -> order.getProperty().equals(property))) {
+                throw new IllegalArgumentException("sort lists " + property + " more than once");
+            }
+            orders.add(new Sort.Order(direction, property));
+        }
+        if (rank) {
+            if (!orders.isEmpty()) {
+                throw new IllegalArgumentException("rank cannot be combined with sort");
+            }
+            orders.add(Sort.Order.by(RELEVANCE));
+        }
+        if (orders.size() > MAX_PROPERTIES) {
+            throw new IllegalArgumentException("sort takes at most " + MAX_PROPERTIES + " properties");
+        }
+        if (orders.size() > 1 && orders.stream().anyMatch(order -> RELEVANCE.equals(order.getProperty()))) {
+            throw new IllegalArgumentException(RELEVANCE + " cannot be combined with other sort properties");
+        }
+        return Sort.by(orders);
+    }
+
+    /**
+     * True for ascending id order, the default and the only order a cursor can seek in.
+     */
+    public static boolean isIdOrder(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        return orders.isEmpty() || orders.get(0).getProperty().equals(ID) && orders.get(0).isAscending();
+    }
+
+    /**
+     * The sort with the id as its last key, in the direction of the sort's last property; id order when unsorted.
+     */
+    public static Sort withIdTiebreak(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order);
+            if (order.getProperty().equals(ID)) {
+                return Sort.by(orders);
+            }
+        }
+        Sort.Direction direction = orders.isEmpty() ? Sort.Direction.ASC : orders.get(orders.size() - 1).getDirection();
+        orders.add(new Sort.Order(direction, ID));
+        return Sort.by(orders);
+    }
+}
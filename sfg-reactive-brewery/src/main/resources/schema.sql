@@ -3,9 +3,20 @@ CREATE TABLE IF NOT EXISTS beer (
     beer_name varchar(255),
     beer_style varchar(255),
     upc varchar(25),
-    version integer,
+    version integer DEFAULT 0 NOT NULL,
     quantity_on_hand integer,
     price decimal,
     created_date timestamp,
     last_modified_date timestamp
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS beer_upc_idx ON beer (upc);
+
+-- listBeers sorts: each order ends in id, with and without the style filter in front
+CREATE INDEX IF NOT EXISTS beer_price_id_idx ON beer (price, id);
+CREATE INDEX IF NOT EXISTS beer_name_id_idx ON beer (beer_name, id);
+CREATE INDEX IF NOT EXISTS beer_last_modified_id_idx ON beer (last_modified_date, id);
+CREATE INDEX IF NOT EXISTS beer_style_id_idx ON beer (beer_style, id);
+CREATE INDEX IF NOT EXISTS beer_style_price_id_idx ON beer (beer_style, price, id);
+CREATE INDEX IF NOT EXISTS beer_style_name_id_idx ON beer (beer_style, beer_name, id);
+CREATE INDEX IF NOT EXISTS beer_style_last_modified_id_idx ON beer (beer_style, last_modified_date, id);
\ No newline at end of file
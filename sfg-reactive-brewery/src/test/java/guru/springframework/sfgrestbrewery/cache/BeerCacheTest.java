@@ -0,0 +1,80 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BeerCacheTest {
+
+    BeerCache beerCache;
+    AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        beerCache = new BeerCache(new BeerCacheProperties(), new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getByIdLoadsOnce() {
+        beerCache.getById(1, this::load).block();
+        BeerDto beerDto = beerCache.getById(1, this::load).block();
+
+        assertEquals(1, loads.get());
+        assertEquals(1, beerDto.getId());
+    }
+
+    @Test
+    void emptyResultIsNotCached() {
+        assertNull(beerCache.getById(1, id -> Mono.<BeerDto>empty().doOnSubscribe(s -> loads.incrementAndGet())).block());
+        beerCache.getById(1, this::load).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictDropsIdUpcAndMatchingPages() {
+        BeerListKey ales = new BeerListKey(new BeerFilter(null, BeerStyleEnum.ALE), 0, 25, Sort.unsorted(), null, true);
+        BeerListKey stouts = new BeerListKey(new BeerFilter(null, BeerStyleEnum.STOUT), 0, 25, Sort.unsorted(), null, true);
+        beerCache.getById(1, this::load).block();
+        beerCache.getByUpc("123", upc -> load(1)).block();
+        beerCache.getPage(ales, this::loadPage).block();
+        beerCache.getPage(stouts, this::loadPage).block();
+        loads.set(0);
+
+        beerCache.evict(Beer.builder().id(1).upc("123").beerName("Mango Bobs").beerStyle(BeerStyleEnum.ALE).build());
+
+        beerCache.getById(1, this::load).block();
+        beerCache.getByUpc("123", upc -> load(1)).block();
+        beerCache.getPage(ales, this::loadPage).block();
+        beerCache.getPage(stouts, this::loadPage).block();
+        assertEquals(3, loads.get());
+    }
+
+    private Mono<BeerDto> load(Integer id) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return BeerDto.builder().id(id).beerName("Mango Bobs").build();
+        });
+    }
+
+    private Mono<BeerPagedList> loadPage(BeerListKey key) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return new BeerPagedList(Collections.emptyList());
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package guru.springframework.sfgrestbrewery.cache;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeerLookupCoalescerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BeerLookupCoalescer coalescer = new BeerLookupCoalescer(meterRegistry);
+
+    Sinks.One<Beer> row = Sinks.one();
+    AtomicInteger reads = new AtomicInteger();
+    AtomicBoolean readCancelled = new AtomicBoolean();
+    Function<Integer, Mono<Beer>> loader = id -> {
+        reads.incrementAndGet();
+        return row.asMono().doOnCancel(() -> readCancelled.set(true));
+    };
+
+    @Test
+    void concurrentCallersShareOneRead() {
+        AtomicReference<Beer> first = new AtomicReference<>();
+        AtomicReference<Beer> second = new AtomicReference<>();
+        coalescer.getById(1, loader).subscribe(first::set);
+        coalescer.getById(1, loader).subscribe(second::set);
+        assertEquals(1.0, meterRegistry.get(BeerLookupCoalescer.IN_FLIGHT).tag("lookup", "id").gauge().value());
+
+        Beer beer = Beer.builder().id(1).build();
+        row.tryEmitValue(beer);
+
+        assertEquals(1, reads.get());
+        assertSame(beer, first.get());
+        assertSame(beer, second.get());
+        assertEquals(1.0, lookups("loaded"));
+        assertEquals(1.0, lookups("joined"));
+        assertEquals(0.0, meterRegistry.get(BeerLookupCoalescer.IN_FLIGHT).tag("lookup", "id").gauge().value());
+    }
+
+    @Test
+    void cancellingOneCallerKeepsTheReadForTheOthers() {
+        AtomicReference<Beer> remaining = new AtomicReference<>();
+        Disposable cancelled = coalescer.getById(1, loader).subscribe();
+        coalescer.getById(1, loader).subscribe(remaining::set);
+
+        cancelled.dispose();
+        assertFalse(readCancelled.get());
+        row.tryEmitValue(Beer.builder().id(1).build());
+
+        assertEquals(1, remaining.get().getId());
+    }
+
+    @Test
+    void readIsCancelledOnceEveryCallerHas() {
+        Disposable first = coalescer.getById(1, loader).subscribe();
+        Disposable second = coalescer.getById(1, loader).subscribe();
+
+        first.dispose();
+        second.dispose();
+
+        assertTrue(readCancelled.get());
+    }
+
+    @Test
+    void completedReadsAreNotKept() {
+        row.tryEmitValue(Beer.builder().id(1).build());
+        coalescer.getById(1, loader).block();
+        coalescer.getById(1, loader).block();
+
+        assertEquals(2, reads.get());
+        assertEquals(2.0, lookups("loaded"));
+    }
+
+    @Test
+    void writeDetachesInFlightRead() {
+        AtomicReference<Beer> beforeWrite = new AtomicReference<>();
+        coalescer.getById(1, loader).subscribe(beforeWrite::set);
+
+        coalescer.onUpdated(Beer.builder().id(1).build(), Beer.builder().id(1).build());
+        Mono<Beer> afterWrite = coalescer.getById(1, id -> Mono.just(Beer.builder().id(id).beerName("new").build()));
+        row.tryEmitValue(Beer.builder().id(1).beerName("old").build());
+
+        assertEquals("old", beforeWrite.get().getBeerName());
+        assertEquals("new", afterWrite.block().getBeerName());
+        assertEquals(0.0, lookups("joined"));
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get(BeerLookupCoalescer.LOOKUPS).tags("lookup", "id", "result", result).counter().count();
+    }
+}
@@ -0,0 +1,169 @@
+package guru.springframework.sfgrestbrewery.catalog;
+
+import guru.springframework.sfgrestbrewery.cache.BeerFilter;
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.repositories.BeerRepository;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BeerCatalogTest {
+
+    static final LocalDateTime CREATED = LocalDateTime.of(2021, 1, 1, 12, 0);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BeerRepository beerRepository = mock(BeerRepository.class);
+    BeerCatalog catalog = new BeerCatalog(beerRepository, new BeerCatalogProperties(), meterRegistry);
+
+    @Test
+    void servesLoadedBeersByIdUpcAndStyle() {
+        when(beerRepository.findAll()).thenReturn(Flux.just(
+            beer(3, "Galaxy Cat", BeerStyleEnum.PALE_ALE), beer(1, "Mango Bobs", BeerStyleEnum.ALE),
+            beer(2, "Pinball Porter", BeerStyleEnum.PORTER), beer(4, "Cat Porter", BeerStyleEnum.PORTER)));
+        assertFalse(catalog.isReady());
+
+        catalog.load().block();
+
+        assertTrue(catalog.isReady());
+        assertEquals("Mango Bobs", catalog.getById(1).getBeerName());
+        assertEquals(3, catalog.getByUpc("upc-3").getId());
+        assertNull(catalog.getById(5));
+        assertEquals(Arrays.asList(1, 2, 3, 4), ids(catalog.find(new BeerFilter(null, null))));
+        assertEquals(Arrays.asList(2, 4), ids(catalog.find(new BeerFilter(null, BeerStyleEnum.PORTER))));
+        assertEquals(Arrays.asList(3, 4), ids(catalog.find(new BeerFilter("Cat", null))));
+        assertEquals(2, BeerCatalog.indexAfter(catalog.find(new BeerFilter(null, null)), 2));
+        assertEquals(4.0, meterRegistry.get(BeerCatalog.SIZE).gauge().value());
+    }
+
+    @Test
+    void writesArePublishedCopyOnWrite() {
+        when(beerRepository.findAll()).thenReturn(Flux.just(beer(1, "Mango Bobs", BeerStyleEnum.ALE)));
+        catalog.load().block();
+        List<Beer> before = catalog.find(new BeerFilter(null, null));
+        List<Beer> alesBefore = catalog.find(new BeerFilter(null, BeerStyleEnum.ALE));
+
+        catalog.onCreated(Collections.singletonList(beer(2, "Pinball Porter", BeerStyleEnum.PORTER)));
+        catalog.onUpdated(null, beer(1, "Mango Bobs II", BeerStyleEnum.IPA).toBuilder().version(1L).upc("upc-1b").build());
+
+        assertEquals(Collections.singletonList(1), ids(before));
+        assertEquals("Mango Bobs", alesBefore.get(0).getBeerName());
+        Beer updated = catalog.getById(1);
+        assertEquals("Mango Bobs II", updated.getBeerName());
+        assertEquals(1L, updated.getVersion());
+        assertEquals(updated, catalog.getByUpc("upc-1b"));
+        assertNull(catalog.getByUpc("upc-1"));
+        assertEquals(Collections.singletonList(1), ids(catalog.find(new BeerFilter(null, BeerStyleEnum.IPA))));
+        assertEquals(Collections.emptyList(), ids(catalog.find(new BeerFilter(null, BeerStyleEnum.ALE))));
+        assertEquals(Arrays.asList(1, 2), ids(catalog.find(new BeerFilter(null, null))));
+
+        catalog.onDeleted(catalog.getById(2));
+        catalog.onDeleted(beer(5, "Never loaded", BeerStyleEnum.PORTER));
+
+        assertNull(catalog.getById(2));
+        assertNull(catalog.getByUpc("upc-2"));
+        assertEquals(Collections.singletonList(1), ids(catalog.find(new BeerFilter(null, null))));
+        assertEquals(Collections.emptyList(), ids(catalog.find(new BeerFilter(null, BeerStyleEnum.PORTER))));
+    }
+
+    @Test
+    void singleWritesKeepTheIdOrder() {
+        when(beerRepository.findAll()).thenReturn(Flux.just(beer(2, "Mango Bobs", BeerStyleEnum.ALE), beer(4, "Cat Ale", BeerStyleEnum.ALE)));
+        catalog.load().block();
+
+        catalog.onCreated(Collections.singletonList(beer(3, "Galaxy Cat", BeerStyleEnum.ALE)));
+        catalog.onCreated(Collections.singletonList(beer(1, "Pinball Porter", BeerStyleEnum.ALE)));
+        catalog.onCreated(Collections.singletonList(beer(5, "Mango Porter", BeerStyleEnum.PORTER)));
+        catalog.onDeleted(catalog.getById(3));
+
+        assertEquals(Arrays.asList(1, 2, 4, 5), ids(catalog.find(new BeerFilter(null, null))));
+        assertEquals(Arrays.asList(1, 2, 4), ids(catalog.find(new BeerFilter(null, BeerStyleEnum.ALE))));
+        assertEquals(4, catalog.getByUpc("upc-4").getId());
+        assertEquals(4.0, meterRegistry.get(BeerCatalog.SIZE).gauge().value());
+    }
+
+    @Test
+    void writesDuringLoadAreReplayed() {
+        Sinks.Many<Beer> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(beerRepository.findAll()).thenReturn(rows.asFlux());
+        catalog.load().subscribe();
+
+        rows.tryEmitNext(beer(1, "Mango Bobs", BeerStyleEnum.ALE));
+        rows.tryEmitNext(beer(2, "Pinball Porter", BeerStyleEnum.PORTER));
+        catalog.onCreated(Collections.singletonList(beer(3, "Galaxy Cat", BeerStyleEnum.PALE_ALE)));
+        catalog.onDeleted(beer(2, "Pinball Porter", BeerStyleEnum.PORTER));
+        rows.tryEmitComplete();
+
+        assertEquals(Arrays.asList(1, 3), ids(catalog.find(new BeerFilter(null, null))));
+    }
+
+    @Test
+    void updatesDuringLoadAreReplayedAsStored() {
+        Sinks.Many<Beer> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(beerRepository.findAll()).thenReturn(rows.asFlux());
+        catalog.load().subscribe();
+
+        rows.tryEmitNext(beer(1, "Mango Bobs", BeerStyleEnum.ALE));
+        catalog.onUpdated(null, beer(1, "Mango Bobs II", BeerStyleEnum.ALE).toBuilder().version(1L).quantityOnHand(12).build());
+        rows.tryEmitComplete();
+
+        assertEquals("Mango Bobs II", catalog.getById(1).getBeerName());
+        assertEquals(1L, catalog.getById(1).getVersion());
+        assertNull(catalog.getById(1).getQuantityOnHand());
+        assertEquals(CREATED, catalog.getById(1).getCreatedDate());
+    }
+
+    @Test
+    void reloadCountsDrift() {
+        when(beerRepository.findAll()).thenReturn(Flux.just(beer(1, "Mango Bobs", BeerStyleEnum.ALE), beer(2, "Pinball Porter", BeerStyleEnum.PORTER)))
+            .thenReturn(Flux.just(beer(1, "Mango Bobs", BeerStyleEnum.ALE), beer(2, "Renamed elsewhere", BeerStyleEnum.PORTER), beer(3, "Galaxy Cat", BeerStyleEnum.PALE_ALE)));
+        catalog.load().block();
+
+        catalog.load().block();
+
+        assertEquals(2.0, meterRegistry.get(BeerCatalog.DRIFT).counter().count());
+        assertEquals("Renamed elsewhere", catalog.getById(2).getBeerName());
+    }
+
+    @Test
+    void firstBeersAgreeWithAFullSort() {
+        List<Beer> beers = IntStream.range(0, 500)
+            .mapToObj(i -> beer(i, "Beer " + (i * 7919 % 101), BeerStyleEnum.ALE).toBuilder()
+                .price(i % 13 == 0 ? null : BigDecimal.valueOf(i * 31 % 17)).build())
+            .collect(Collectors.toList());
+        Sort sort = Sort.by(Sort.Order.desc(BeerSort.PRICE), Sort.Order.asc(BeerSort.NAME));
+        List<Beer> sorted = beers.stream().sorted(BeerCatalog.comparator(sort)).collect(Collectors.toList());
+
+        assertEquals(ids(sorted.subList(0, 20)), ids(BeerCatalog.first(beers, sort, 20)));
+        assertEquals(ids(sorted.subList(0, 200)), ids(BeerCatalog.first(beers, sort, 200)));
+        assertEquals(ids(sorted), ids(BeerCatalog.first(beers, sort, 1000)));
+        assertNull(sorted.get(sorted.size() - 1).getPrice());
+    }
+
+    private static Beer beer(int id, String name, BeerStyleEnum style) {
+        return Beer.builder().id(id).version(0L).beerName(name).beerStyle(style).upc("upc-" + id).createdDate(CREATED).build();
+    }
+
+    private static List<Integer> ids(List<Beer> beers) {
+        return beers.stream().map(Beer::getId).collect(Collectors.toList());
+    }
+}
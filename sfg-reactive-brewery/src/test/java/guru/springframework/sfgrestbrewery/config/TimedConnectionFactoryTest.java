@@ -0,0 +1,35 @@
+package guru.springframework.sfgrestbrewery.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TimedConnectionFactoryTest {
+
+    static final ConnectionPool pool = mock(ConnectionPool.class);
+
+    @Test
+    void poolIsClosedWithTheContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(PoolConfig.class);
+
+        context.close();
+
+        verify(pool).close();
+    }
+
+    @Configuration
+    static class PoolConfig {
+
+        @Bean
+        TimedConnectionFactory connectionFactory() {
+            return new TimedConnectionFactory(pool, new SimpleMeterRegistry(), "connectionFactory");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package guru.springframework.sfgrestbrewery.inventory;
+
+import guru.springframework.sfgrestbrewery.services.BeerService;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BeerInventoryTest {
+
+    @Autowired
+    BeerInventory beerInventory;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    Integer beerId;
+
+    @BeforeEach
+    void setUp() {
+        beerId = beerService.saveNewBeer(BeerDto.builder()
+            .beerName("Flash Sale Lager")
+            .beerStyle(BeerStyleEnum.LAGER.name())
+            .upc("990000000200")
+            .price(new BigDecimal("3.99"))
+            .quantityOnHand(100)
+            .build()).block().getId();
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() {
+        Long reserved = Flux.range(0, 150)
+            .flatMap(i -> beerInventory.reserve(beerId, 1).thenReturn(1L).onErrorReturn(InsufficientInventoryException.class, 0L), 32)
+            .reduce(0L, Long::sum)
+            .block();
+
+        assertEquals(100L, reserved);
+        assertEquals(0L, beerInventory.onHand(beerId));
+        assertThrows(InsufficientInventoryException.class, () -> beerInventory.reserve(beerId, 1).block());
+    }
+
+    @Test
+    void flushWritesNetChange() {
+        beerInventory.reserve(beerId, 30).block();
+        beerInventory.release(beerId, 5).block();
+        beerInventory.flush().block();
+
+        assertEquals(75, quantityOnHandInTable());
+        assertEquals(75L, beerInventory.onHand(beerId));
+    }
+
+    @Test
+    void idleCountersAreDroppedOnceWrittenBack() {
+        beerInventory.reserve(beerId, 10).block();
+        beerInventory.flush().block();
+        beerInventory.evictIdle(Duration.ZERO);
+
+        assertNull(beerInventory.onHand(beerId));
+        assertEquals(85L, beerInventory.reserve(beerId, 5).block());
+    }
+
+    private Integer quantityOnHandInTable() {
+        return databaseClient.sql("SELECT quantity_on_hand FROM beer WHERE id = :id")
+            .bind("id", beerId)
+            .map((row, metadata) -> row.get("quantity_on_hand", Integer.class))
+            .one()
+            .block();
+    }
+}
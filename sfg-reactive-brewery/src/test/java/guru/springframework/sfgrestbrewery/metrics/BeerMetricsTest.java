@@ -0,0 +1,41 @@
+package guru.springframework.sfgrestbrewery.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@AutoConfigureMetrics
+class BeerMetricsTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    void prometheusEndpointExposesRouteAndQueryMetrics() {
+        webTestClient.get().uri("/api/v1/beer/1").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/api/v2/beer/beerUpc/0631234200036").exchange().expectStatus().isOk();
+
+        String scrape = webTestClient.get().uri("/actuator/prometheus").exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(scrape)
+            .contains("http_server_requests_seconds_bucket")
+            .contains("uri=\"/api/v1/beer/{beerId}\"")
+            .contains("uri=\"/api/v2/beer/beerUpc/{upc}\"")
+            .contains("beer_db_query_seconds_count{operation=\"findAllById\",outcome=\"success\",}")
+            .contains("beer_db_query_seconds_count{operation=\"findByUpc\",outcome=\"success\",}")
+            .contains("beer_lookup_total{lookup=\"id\",result=\"loaded\",}")
+            .contains("http_server_requests_in_flight{api=\"v1\",}")
+            .contains("http_server_requests_limit ")
+            .contains("r2dbc_pool_acquire_seconds_count{name=\"connectionFactory\",outcome=\"success\",}")
+            .contains("r2dbc_pool_idle_connections{name=\"connectionFactory\",}");
+    }
+}
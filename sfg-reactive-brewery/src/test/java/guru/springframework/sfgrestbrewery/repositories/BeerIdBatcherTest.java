@@ -0,0 +1,58 @@
+package guru.springframework.sfgrestbrewery.repositories;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.metrics.BeerMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BeerIdBatcherTest {
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BeerIdBatcher beerIdBatcher;
+
+    @BeforeEach
+    void setUp() {
+        // a window no test outlasts, so batches close on size alone
+        BeerLookupProperties properties = new BeerLookupProperties();
+        properties.setBatchWindow(Duration.ofMinutes(1));
+        properties.setMaxBatchSize(4);
+        beerIdBatcher = new BeerIdBatcher(beerRepository, new BeerMetrics(meterRegistry), properties, meterRegistry);
+    }
+
+    @Test
+    void lookupsInOneWindowShareAQuery() {
+        List<Integer> found = Flux.just(3, 1, 1, 2, 999_999)
+            .flatMap(beerId -> beerIdBatcher.findById(beerId).map(Beer::getId), 5)
+            .collectList().block();
+
+        assertEquals(List.of(1, 1, 2, 3), found.stream().sorted().collect(Collectors.toList()));
+        DistributionSummary batchSizes = meterRegistry.get(BeerIdBatcher.BATCH_SIZE).summary();
+        assertEquals(1, batchSizes.count());
+        assertEquals(4, batchSizes.totalAmount());
+    }
+
+    @Test
+    void unknownIdIsEmpty() {
+        Flux<Beer> beers = Flux.just(1, 2, 3, 999_999).flatMap(beerIdBatcher::findById, 4);
+
+        assertEquals(3, beers.count().block());
+        assertNull(beers.filter(beer -> beer.getId() == 999_999).blockLast());
+    }
+}
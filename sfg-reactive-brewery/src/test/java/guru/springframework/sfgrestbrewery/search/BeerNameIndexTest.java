@@ -0,0 +1,91 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeerNameIndexTest {
+
+    BeerNameIndex beerNameIndex;
+
+    @BeforeEach
+    void setUp() {
+        beerNameIndex = new BeerNameIndex(null, new BeerSearchProperties());
+        beerNameIndex.load(Arrays.asList(
+            entry(1, "Pinball Porter", BeerStyleEnum.STOUT),
+            entry(2, "PBS Porter", BeerStyleEnum.PORTER),
+            entry(3, "Porter", BeerStyleEnum.PORTER),
+            entry(4, "Mango Bobs", BeerStyleEnum.ALE),
+            entry(5, "Transporter", BeerStyleEnum.PORTER)));
+    }
+
+    @Test
+    void searchMatchesLikeSemantics() {
+        assertEquals(Arrays.asList(1, 2, 3), beerNameIndex.search("Porter", null, false));
+        assertEquals(Collections.singletonList(5), beerNameIndex.search("porter", null, false));
+        assertEquals(Arrays.asList(2, 3), beerNameIndex.search("Porter", BeerStyleEnum.PORTER, false));
+        assertEquals(Collections.emptyList(), beerNameIndex.search("Lager", null, false));
+    }
+
+    @Test
+    void searchShortQueries() {
+        assertEquals(Arrays.asList(4), beerNameIndex.search("Ma", null, false));
+        assertEquals(Arrays.asList(4), beerNameIndex.search("g", null, false));
+        assertEquals(Arrays.asList(1, 2, 3, 5), beerNameIndex.search("r", null, false));
+    }
+
+    @Test
+    void searchRanksExactThenPrefixThenWordThenInfix() {
+        beerNameIndex.onCreated(Collections.singletonList(beer(6, "Porter Prime", BeerStyleEnum.PORTER)));
+
+        assertEquals(Arrays.asList(3, 6, 2, 1), beerNameIndex.search("Porter", null, true));
+    }
+
+    @Test
+    void updatesAndDeletesAreReflected() {
+        Beer mango = beer(4, "Mango Bobs", BeerStyleEnum.ALE);
+        Beer renamed = beer(4, "Baltic Porter", BeerStyleEnum.PORTER);
+
+        beerNameIndex.onUpdated(mango, renamed);
+        beerNameIndex.onDeleted(beer(1, "Pinball Porter", BeerStyleEnum.STOUT));
+
+        assertEquals(Collections.emptyList(), beerNameIndex.search("Mango", null, false));
+        assertEquals(Arrays.asList(2, 3, 4), beerNameIndex.search("Porter", null, false));
+    }
+
+    @Test
+    void writesDuringLoadAreReplayedOnTopOfIt() {
+        beerNameIndex = new BeerNameIndex(null, new BeerSearchProperties());
+        // the load's rows were read before these writes committed
+        beerNameIndex.onDeleted(beer(1, "Pinball Porter", BeerStyleEnum.STOUT));
+        beerNameIndex.onUpdated(beer(2, "PBS Porter", BeerStyleEnum.PORTER), beer(2, "PBS Lager", BeerStyleEnum.LAGER));
+        beerNameIndex.onCreated(Collections.singletonList(beer(6, "Baltic Porter", BeerStyleEnum.PORTER)));
+        assertFalse(beerNameIndex.isReady());
+
+        beerNameIndex.load(Arrays.asList(
+            entry(1, "Pinball Porter", BeerStyleEnum.STOUT),
+            entry(2, "PBS Porter", BeerStyleEnum.PORTER),
+            entry(3, "Porter", BeerStyleEnum.PORTER)));
+
+        assertTrue(beerNameIndex.isReady());
+        assertEquals(Arrays.asList(3, 6), beerNameIndex.search("Porter", null, false));
+        assertEquals(Collections.singletonList(2), beerNameIndex.search("Lager", null, false));
+    }
+
+    private static BeerNameIndex.Entry entry(Integer id, String beerName, BeerStyleEnum beerStyle) {
+        return new BeerNameIndex.Entry(id, beerName, beerStyle);
+    }
+
+    private static Beer beer(Integer id, String beerName, BeerStyleEnum beerStyle) {
+        return Beer.builder().id(id).beerName(beerName).beerStyle(beerStyle).build();
+    }
+}
@@ -0,0 +1,81 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BeerStyleIndexTest {
+
+    BeerStyleIndex beerStyleIndex;
+
+    @BeforeEach
+    void setUp() {
+        beerStyleIndex = new BeerStyleIndex(null, new BeerSearchProperties());
+        beerStyleIndex.load(Arrays.asList(
+            entry(5, BeerStyleEnum.PORTER, "12.50"),
+            entry(1, BeerStyleEnum.PORTER, "9.99"),
+            entry(3, BeerStyleEnum.PORTER, null),
+            entry(2, BeerStyleEnum.ALE, "11.00"),
+            entry(4, BeerStyleEnum.PORTER, "9.99")));
+    }
+
+    @Test
+    void slicesInIdOrderByOffsetOrCursor() {
+        assertEquals(new BeerStyleIndex.Slice(Arrays.asList(1, 3), 4), beerStyleIndex.slice(BeerStyleEnum.PORTER, null, null, 0, 2));
+        assertEquals(Arrays.asList(4, 5), beerStyleIndex.slice(BeerStyleEnum.PORTER, null, null, 2, 10).getIds());
+        assertEquals(Arrays.asList(4, 5), beerStyleIndex.slice(BeerStyleEnum.PORTER, null, 3, 0, 10).getIds());
+        assertEquals(Collections.emptyList(), beerStyleIndex.slice(BeerStyleEnum.PORTER, null, null, 10, 2).getIds());
+        assertEquals(new BeerStyleIndex.Slice(Collections.emptyList(), 0), beerStyleIndex.slice(BeerStyleEnum.IPA, null, null, 0, 2));
+    }
+
+    @Test
+    void slicesInPriceOrderWithTiesById() {
+        assertEquals(Arrays.asList(3, 1, 4, 5), beerStyleIndex.slice(BeerStyleEnum.PORTER, Sort.Direction.ASC, null, 0, 10).getIds());
+        assertEquals(Arrays.asList(5, 4, 1, 3), beerStyleIndex.slice(BeerStyleEnum.PORTER, Sort.Direction.DESC, null, 0, 10).getIds());
+        assertEquals(Arrays.asList(4, 1), beerStyleIndex.slice(BeerStyleEnum.PORTER, Sort.Direction.DESC, null, 1, 2).getIds());
+    }
+
+    @Test
+    void writesAreAppliedIncrementally() {
+        beerStyleIndex.onCreated(Collections.singletonList(beer(6, BeerStyleEnum.PORTER, "10.00")));
+        beerStyleIndex.onUpdated(null, beer(2, BeerStyleEnum.PORTER, "1.00"));
+        beerStyleIndex.onUpdated(null, beer(5, BeerStyleEnum.IPA, "12.50"));
+        beerStyleIndex.onDeleted(beer(3, BeerStyleEnum.PORTER, null));
+
+        assertEquals(Arrays.asList(1, 2, 4, 6), beerStyleIndex.slice(BeerStyleEnum.PORTER, null, null, 0, 10).getIds());
+        assertEquals(Arrays.asList(2, 1, 4, 6), beerStyleIndex.slice(BeerStyleEnum.PORTER, Sort.Direction.ASC, null, 0, 10).getIds());
+        assertEquals(0, beerStyleIndex.slice(BeerStyleEnum.ALE, null, null, 0, 10).getTotal());
+        assertEquals(Collections.singletonList(5), beerStyleIndex.slice(BeerStyleEnum.IPA, Sort.Direction.DESC, null, 0, 10).getIds());
+    }
+
+    @Test
+    void writesBeforeTheLoadAreReplayedOnIt() {
+        BeerStyleIndex index = new BeerStyleIndex(null, new BeerSearchProperties());
+        index.onCreated(Collections.singletonList(beer(3, BeerStyleEnum.ALE, "3.00")));
+        index.onDeleted(beer(1, BeerStyleEnum.ALE, "1.00"));
+        assertFalse(index.isReady());
+
+        // the load already saw the created beer, but not the deletion
+        index.load(Arrays.asList(entry(1, BeerStyleEnum.ALE, "1.00"), entry(2, BeerStyleEnum.ALE, "2.00"), entry(3, BeerStyleEnum.ALE, "3.00")));
+
+        assertEquals(Arrays.asList(2, 3), index.slice(BeerStyleEnum.ALE, null, null, 0, 10).getIds());
+    }
+
+    private static BeerStyleIndex.Entry entry(int id, BeerStyleEnum style, String price) {
+        return BeerStyleIndex.Entry.of(beer(id, style, price));
+    }
+
+    private static Beer beer(int id, BeerStyleEnum style, String price) {
+        return Beer.builder().id(id).beerStyle(style).price(price != null ? new BigDecimal(price) : null).build();
+    }
+}
@@ -0,0 +1,114 @@
+package guru.springframework.sfgrestbrewery.search;
+
+import guru.springframework.sfgrestbrewery.domain.Beer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BeerUpcFilterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    BeerUpcFilterProperties properties = new BeerUpcFilterProperties();
+    BeerUpcFilter filter = new BeerUpcFilter(null, properties, meterRegistry);
+
+    @Test
+    void everyUpcMayBePresentUntilBuilt() {
+        assertTrue(filter.mightContain("0631234200036"));
+        assertEquals(0.0, lookups("present") + lookups("absent"));
+    }
+
+    @Test
+    void knownUpcsAlwaysPassAndFewUnknownOnesDo() {
+        List<String> known = upcs(0, 5_000);
+        filter.install(known, filter.record());
+
+        known.forEach(upc -> assertTrue(filter.mightContain(upc)));
+        long passed = upcs(5_000, 15_000).stream().filter(filter::mightContain).count();
+
+        assertTrue(passed < 300, passed + " of 10000 unknown UPCs passed");
+        assertEquals(5_000.0, lookups("present") - passed);
+        double expected = meterRegistry.get(BeerUpcFilter.EXPECTED_FALSE_POSITIVE_RATE).gauge().value();
+        assertTrue(expected > 0 && expected < 0.01, "expected false-positive rate " + expected);
+    }
+
+    @Test
+    void upcsWrittenDuringABuildAreKept() {
+        List<String> written = filter.record();
+        filter.onCreated(Collections.singletonList(Beer.builder().id(1).upc("0000000000001").build()));
+
+        filter.install(upcs(100, 200), written);
+        Beer updated = Beer.builder().id(2).upc("0000000000002").build();
+        filter.onUpdated(updated, updated);
+
+        assertTrue(filter.mightContain("0000000000001"));
+        assertTrue(filter.mightContain("0000000000002"));
+    }
+
+    @Test
+    void changedUpcsAreForgottenByARebuild() throws InterruptedException {
+        DatabaseClient databaseClient = mock(DatabaseClient.class, RETURNS_DEEP_STUBS);
+        when(databaseClient.sql(anyString()).map(ArgumentMatchers.<BiFunction<Row, RowMetadata, String>>any()).all())
+            .thenReturn(Flux.just("0000000000002"));
+        clearInvocations(databaseClient);
+        properties.setRebuildDelay(Duration.ofMillis(10));
+        filter = new BeerUpcFilter(databaseClient, properties, meterRegistry);
+        filter.install(List.of("0000000000001"), filter.record());
+
+        Beer renumbered = Beer.builder().id(1).upc("0000000000002").build();
+        filter.onUpdated(Beer.builder().id(1).upc("0000000000001").build(), renumbered);
+        filter.onUpdated(renumbered, renumbered);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (filter.mightContain("0000000000001") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(filter.mightContain("0000000000001"));
+        assertTrue(filter.mightContain("0000000000002"));
+
+        // an update that keeps the UPC has nothing to forget
+        filter.onUpdated(renumbered, renumbered.toBuilder().beerName("Renamed").build());
+        Thread.sleep(200);
+        verify(databaseClient, times(1)).sql(anyString());
+    }
+
+    @Test
+    void falsePositivesAreCountedOnceBuilt() {
+        filter.falsePositive();
+        filter.install(upcs(0, 10), filter.record());
+        filter.falsePositive();
+
+        assertEquals(1.0, lookups("false_positive"));
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get(BeerUpcFilter.LOOKUPS).tag("result", result).counter().count();
+    }
+
+    private static List<String> upcs(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> String.format("06312%08d", i)).collect(Collectors.toList());
+    }
+}
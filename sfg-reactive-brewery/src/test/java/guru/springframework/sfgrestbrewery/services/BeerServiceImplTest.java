@@ -0,0 +1,181 @@
+package guru.springframework.sfgrestbrewery.services;
+
+import guru.springframework.sfgrestbrewery.web.model.BeerCursor;
+import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
+import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BeerServiceImplTest {
+
+    @Autowired
+    BeerService beerService;
+
+    @Test
+    void listBeersCountsTotal() {
+        BeerPagedList firstPage = beerService.listBeers(null, null, PageRequest.of(0, 5), false).block();
+
+        assertNotNull(firstPage);
+        assertEquals(5, firstPage.getNumberOfElements());
+        assertTrue(firstPage.getTotalElements() >= 25);
+        assertNotNull(firstPage.getNextCursor());
+    }
+
+    @Test
+    void listBeersByCursorVisitsEveryBeerOnce() {
+        long total = beerService.listBeers(null, BeerStyleEnum.STOUT, PageRequest.of(0, 1), null, true, false)
+            .block().getTotalElements();
+        Set<Integer> seen = new HashSet<>();
+
+        BeerCursor cursor = null;
+        do {
+            BeerPagedList page = beerService.listBeers(null, BeerStyleEnum.STOUT, PageRequest.of(0, 3), cursor, false, false).block();
+            assertNotNull(page);
+            for (BeerDto beer : page.getContent()) {
+                assertEquals(BeerStyleEnum.STOUT.name(), beer.getBeerStyle());
+                assertTrue(seen.add(beer.getId()));
+            }
+            cursor = BeerCursor.decode(page.getNextCursor());
+        } while (cursor != null);
+
+        assertEquals(total, seen.size());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        BeerPagedList page = beerService.listBeers("Mango", null, PageRequest.of(0, 25), false).block();
+
+        assertNotNull(page);
+        assertNull(page.getNextCursor());
+        assertEquals(page.getNumberOfElements(), page.getTotalElements());
+    }
+
+    @Test
+    void listBeersByStyleInPriceOrder() {
+        PageRequest byPrice = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, BeerSort.PRICE));
+
+        BeerPagedList page = beerService.listBeers(null, BeerStyleEnum.PALE_ALE, byPrice, false).block();
+
+        assertNotNull(page);
+        assertTrue(page.getNumberOfElements() > 1);
+        assertEquals(page.getNumberOfElements(), page.getTotalElements());
+        assertNull(page.getNextCursor());
+        for (int i = 1; i < page.getNumberOfElements(); i++) {
+            BeerDto previous = page.getContent().get(i - 1);
+            BeerDto beer = page.getContent().get(i);
+            assertEquals(BeerStyleEnum.PALE_ALE.name(), beer.getBeerStyle());
+            assertTrue(previous.getPrice().compareTo(beer.getPrice()) >= 0);
+        }
+    }
+
+    @Test
+    void listBeersPagesThroughAMultiFieldSort() {
+        Sort sort = Sort.by(Sort.Order.desc(BeerSort.NAME), Sort.Order.asc(BeerSort.PRICE));
+        long total = beerService.listBeers(null, null, PageRequest.of(0, 1, sort), false).block().getTotalElements();
+        List<BeerDto> beers = new ArrayList<>();
+
+        for (int pageNumber = 0; pageNumber * 7 < total; pageNumber++) {
+            BeerPagedList page = beerService.listBeers(null, null, PageRequest.of(pageNumber, 7, sort), false).block();
+            assertNotNull(page);
+            assertNull(page.getNextCursor());
+            beers.addAll(page.getContent());
+        }
+
+        assertEquals(total, beers.stream().map(BeerDto::getId).distinct().count());
+        for (int i = 1; i < beers.size(); i++) {
+            assertTrue(beers.get(i - 1).getBeerName().compareTo(beers.get(i).getBeerName()) >= 0);
+        }
+    }
+
+    @Test
+    void getByIdsKeepsRequestedOrder() {
+        beerService.getById(2, false).block();
+
+        List<Integer> found = beerService.getByIds(List.of(5, 2, 999_999, 7, 5), false).map(BeerDto::getId).collectList().block();
+
+        assertEquals(List.of(5, 2, 7), found);
+    }
+
+    @Test
+    void saveNewBeersReturnsIdsInInputOrder() {
+        List<BeerDto> beerDtos = IntStream.range(0, 7)
+            .mapToObj(i -> BeerDto.builder()
+                .beerName("Batch Beer " + i)
+                .beerStyle(BeerStyleEnum.GOSE.name())
+                .upc("99000000000" + i)
+                .price(new BigDecimal("4.99"))
+                .build())
+            .collect(Collectors.toList());
+
+        List<BeerDto> saved = beerService.saveNewBeers(beerDtos).collectList().block();
+
+        assertNotNull(saved);
+        assertEquals(beerDtos.size(), saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            BeerDto found = beerService.getById(saved.get(i).getId(), false).block();
+            assertNotNull(found);
+            assertEquals("Batch Beer " + i, found.getBeerName());
+        }
+    }
+
+    @Test
+    void updateBeerRejectsStaleVersion() {
+        BeerDto beer = beerService.saveNewBeer(BeerDto.builder()
+            .beerName("Versioned Beer")
+            .beerStyle(BeerStyleEnum.PILSNER.name())
+            .upc("990000000100")
+            .price(new BigDecimal("5.99"))
+            .build()).block();
+        assertNotNull(beer);
+        Long version = beer.getVersion();
+
+        beer.setBeerName("Versioned Beer v2");
+        BeerDto updated = beerService.updateBeer(beer.getId(), beer).block();
+        assertNotNull(updated);
+        assertEquals(version + 1, updated.getVersion());
+
+        beer.setBeerName("Versioned Beer v3");
+        assertThrows(OptimisticLockingFailureException.class, () -> beerService.updateBeer(beer.getId(), beer).block());
+        assertEquals("Versioned Beer v2", beerService.getById(beer.getId(), false).block().getBeerName());
+    }
+
+    @Test
+    void updateBeerReturnsTheStoredRow() {
+        BeerDto beer = beerService.saveNewBeer(BeerDto.builder()
+            .beerName("Stored Beer")
+            .beerStyle(BeerStyleEnum.LAGER.name())
+            .upc("990000000101")
+            .build()).block();
+        assertNotNull(beer);
+
+        BeerDto update = BeerDto.builder().beerName("Stored Beer v2").beerStyle(BeerStyleEnum.LAGER.name()).upc(beer.getUpc()).build();
+        BeerDto updated = beerService.updateBeer(beer.getId(), update).block();
+
+        assertNotNull(updated);
+        assertEquals("Stored Beer v2", updated.getBeerName());
+        assertEquals(beer.getVersion() + 1, updated.getVersion());
+        assertEquals(beer.getCreatedDate(), updated.getCreatedDate());
+    }
+}
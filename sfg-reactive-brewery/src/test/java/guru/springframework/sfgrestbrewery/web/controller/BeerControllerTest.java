@@ -1,13 +1,23 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
 import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.cache.BeerResponseCache;
+import guru.springframework.sfgrestbrewery.config.CodecConfig;
 import guru.springframework.sfgrestbrewery.services.BeerService;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
 import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerSort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,16 +25,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 
 @WebFluxTest(BeerController.class)
+@Import({SimpleMeterRegistry.class, CodecConfig.class, BeerResponseCache.class})
 @ExtendWith(SpringExtension.class)
 class BeerControllerTest {
 
@@ -51,7 +71,7 @@ class BeerControllerTest {
 
         BeerPagedList beerPagedList = new BeerPagedList(beerList, PageRequest.of(1, 1), beerList.size());
 
-        given(beerService.listBeers(any(), any(), any(), any())).willReturn(Mono.just(beerPagedList));
+        given(beerService.listBeers(any(), any(), any(), any(), any(), any())).willReturn(Mono.just(beerPagedList));
 
         webTestClient.get()
             .uri("/api/v1/beer")
@@ -61,6 +81,40 @@ class BeerControllerTest {
             .expectBody(BeerPagedList.class);
     }
 
+    @Test
+    void listBeersDefaultsToPageLayout() {
+        BeerPagedList beerPagedList = new BeerPagedList(Collections.singletonList(validBeer), PageRequest.of(0, 1), 1);
+
+        given(beerService.listBeers(any(), any(), any(), any(), any(), any())).willReturn(Mono.just(beerPagedList));
+
+        webTestClient.get()
+            .uri("/api/v1/beer")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .jsonPath("$.pageable").exists();
+    }
+
+    @Test
+    void listBeersCompact() {
+        BeerPagedList beerPagedList = new BeerPagedList(Collections.singletonList(validBeer), PageRequest.of(0, 1), 3, "MQ");
+
+        given(beerService.listBeers(any(), any(), any(), any(), any(), any())).willReturn(Mono.just(beerPagedList));
+
+        webTestClient.get()
+            .uri("/api/v1/beer")
+            .accept(BeerPagedList.COMPACT_JSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(BeerPagedList.COMPACT_JSON)
+            .expectBody()
+            .jsonPath("$.pageable").doesNotExist()
+            .jsonPath("$.content[0].beerName").isEqualTo(validBeer.getBeerName())
+            .jsonPath("$.totalElements").isEqualTo(3)
+            .jsonPath("$.nextCursor").isEqualTo("MQ");
+    }
+
     @Test
     void getBeerByUPC() {
         given(beerService.getByUpc(any())).willReturn(Mono.just(validBeer));
@@ -74,9 +128,56 @@ class BeerControllerTest {
             .value(BeerDto::getBeerName, equalTo(validBeer.getBeerName()));
     }
 
+    @Test
+    void listBeersPassesTheSortThrough() {
+        BeerPagedList beerPagedList = new BeerPagedList(Collections.singletonList(validBeer), PageRequest.of(0, 25), 1);
+        Sort sort = Sort.by(Sort.Order.desc(BeerSort.PRICE), Sort.Order.asc(BeerSort.NAME));
+        given(beerService.listBeers(any(), any(), eq(PageRequest.of(0, 25, sort)), any(), any(), any()))
+            .willReturn(Mono.just(beerPagedList));
+
+        webTestClient.get()
+            .uri("/api/v1/beer?sort=price,desc&sort=beerName")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isOk();
+    }
+
+    @Test
+    void listBeersRejectsInvalidSorts() {
+        webTestClient.get()
+            .uri("/api/v1/beer?sort=upc")
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        webTestClient.get()
+            .uri("/api/v1/beer?sort=price&cursor=Mg")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void listBeersRejectsInvalidCursors() {
+        webTestClient.get()
+            .uri("/api/v1/beer?cursor=not-a-cursor")
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getBeerByUpcNotFound() {
+        given(beerService.getByUpc(any())).willReturn(Mono.empty());
+
+        webTestClient.get()
+            .uri("/api/v1/beerUpc/0000000000000")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
     @Test
     void getBeerById() {
         int beerId = 1;
+        validBeer.setId(beerId);
         given(beerService.getById(any(), any())).willReturn(Mono.just(validBeer));
 
         webTestClient.get()
@@ -87,4 +188,146 @@ class BeerControllerTest {
             .expectBody(BeerDto.class)
             .value(BeerDto::getBeerName, equalTo(validBeer.getBeerName()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBeerByIdNotModified() {
+        validBeer.setId(1);
+        validBeer.setVersion(4L);
+        validBeer.setCreatedDate(LocalDateTime.of(2021, 10, 1, 12, 0));
+        given(beerService.getById(any(), any())).willReturn(Mono.just(validBeer));
+
+        String eTag = webTestClient.get()
+            .uri("/api/v1/beer/1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+            .returnResult(BeerDto.class)
+            .getResponseHeaders().getETag();
+
+        webTestClient.get()
+            .uri("/api/v1/beer/1")
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+
+        validBeer.setVersion(5L);
+        webTestClient.get()
+            .uri("/api/v1/beer/1")
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus().isOk();
+    }
+
+    @Test
+    void listBeersEtagDependsOnFormat() {
+        BeerPagedList beerPagedList = new BeerPagedList(Collections.singletonList(validBeer), PageRequest.of(0, 1), 1);
+        given(beerService.listBeers(any(), any(), any(), any(), any(), any())).willReturn(Mono.just(beerPagedList));
+
+        String jsonETag = webTestClient.get().uri("/api/v1/beer")
+            .exchange()
+            .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .returnResult(BeerPagedList.class)
+            .getResponseHeaders().getETag();
+        String compactETag = webTestClient.get().uri("/api/v1/beer")
+            .accept(BeerPagedList.COMPACT_JSON)
+            .exchange()
+            .returnResult(String.class)
+            .getResponseHeaders().getETag();
+
+        assertNotEquals(jsonETag, compactETag);
+        webTestClient.get().uri("/api/v1/beer")
+            .accept(BeerPagedList.COMPACT_JSON)
+            .ifNoneMatch(compactETag)
+            .exchange()
+            .expectStatus().isNotModified();
+    }
+
+    @Test
+    void listBeersGzipsLargeBodiesForClientsThatAcceptIt() throws IOException {
+        List<BeerDto> beers = IntStream.range(0, 20)
+            .mapToObj(i -> BeerDto.builder().id(i).version(1L).beerName("Beer " + i).beerStyle("ALE").upc("0631234" + i).build())
+            .collect(Collectors.toList());
+        BeerPagedList beerPagedList = new BeerPagedList(beers, PageRequest.of(0, 20), 20);
+        given(beerService.listBeers(any(), any(), any(), any(), any(), any())).willReturn(Mono.just(beerPagedList));
+
+        byte[] plain = webTestClient.get().uri("/api/v1/beer")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+            .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING)
+            .expectBody().returnResult().getResponseBody();
+        byte[] gzipped = webTestClient.get().uri("/api/v1/beer")
+            .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .expectBody().returnResult().getResponseBody();
+
+        try (GZIPInputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertArrayEquals(plain, unzipped.readAllBytes());
+        }
+        assertTrue(gzipped.length < plain.length);
+    }
+
+    @Test
+    void getBeerWithInventoryIsNotServedFromTheBodyCache() {
+        validBeer.setId(1);
+        validBeer.setVersion(1L);
+        validBeer.setQuantityOnHand(5);
+        given(beerService.getById(any(), any())).willReturn(Mono.just(validBeer));
+        webTestClient.get().uri("/api/v1/beer/1?showInventoryOnHand=true").exchange()
+            .expectBody().jsonPath("$.quantityOnHand").isEqualTo(5);
+
+        validBeer.setQuantityOnHand(4);
+        webTestClient.get().uri("/api/v1/beer/1?showInventoryOnHand=true").exchange()
+            .expectBody().jsonPath("$.quantityOnHand").isEqualTo(4);
+    }
+
+    @Test
+    void updateBeerConflict() {
+        given(beerService.updateBeer(any(), any())).willReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        webTestClient.put()
+            .uri("/api/v1/beer/1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(validBeer)
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void updateMissingBeerIsNotFound() {
+        given(beerService.updateBeer(any(), any())).willReturn(Mono.just(new BeerDto()));
+
+        webTestClient.put()
+            .uri("/api/v1/beer/111")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(validBeer)
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    void saveNewBeerReturnsLocationOfSavedBeer() {
+        given(beerService.saveNewBeer(any(BeerDto.class))).willReturn(Mono.just(BeerDto.builder().id(42).build()));
+
+        webTestClient.post()
+            .uri("/api/v1/beer")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(validBeer)
+            .exchange()
+            .expectStatus().isCreated()
+            .expectHeader().location("http://api.springframework.guru/api/v1/beer/42");
+    }
+
+    @Test
+    void deleteMissingBeerIsNoContent() {
+        given(beerService.reactiveDeleteById(any())).willReturn(Mono.error(new NotFoundException()));
+
+        webTestClient.delete()
+            .uri("/api/v1/beer/111")
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+}
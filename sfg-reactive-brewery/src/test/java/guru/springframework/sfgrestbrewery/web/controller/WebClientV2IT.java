@@ -1,16 +1,24 @@
 package guru.springframework.sfgrestbrewery.web.controller;
 
 import guru.springframework.sfgrestbrewery.bootstrap.BeerLoader;
+import guru.springframework.sfgrestbrewery.config.CodecConfig;
 import guru.springframework.sfgrestbrewery.web.functional.BeerRouterConfig;
+import guru.springframework.sfgrestbrewery.web.model.BeerBatchResult;
 import guru.springframework.sfgrestbrewery.web.model.BeerDto;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedList;
+import guru.springframework.sfgrestbrewery.web.model.BeerPagedListModule;
 import guru.springframework.sfgrestbrewery.web.model.BeerStyleEnum;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.netty.http.client.HttpClient;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -20,6 +28,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -66,6 +78,27 @@ public class WebClientV2IT {
             assertEquals(0, countDownLatch.getCount());
         }
 
+        @Test
+        void getBeerByIdNotModified() {
+            ResponseEntity<BeerDto> first = webClient.get().uri(BEER_V2_PATH + "/2")
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .toEntity(BeerDto.class)
+                .block();
+            assertNotNull(first);
+            String eTag = first.getHeaders().getETag();
+            assertNotNull(eTag);
+
+            ResponseEntity<Void> second = webClient.get().uri(BEER_V2_PATH + "/2")
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(eTag)
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+            assertNotNull(second);
+            assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        }
+
         @Test
         void getBeerByIdNotFound() throws InterruptedException {
             CountDownLatch countDownLatch = new CountDownLatch(1);
@@ -116,6 +149,203 @@ public class WebClientV2IT {
 
     }
 
+    @Nested
+    class ListBeer {
+
+        @Test
+        void listBeers() {
+            BeerPagedList page = webClient.get().uri(BEER_V2_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(BeerPagedList.class)
+                .block();
+
+            assertNotNull(page);
+            assertTrue(page.getContent().size() > 0);
+        }
+
+        @Test
+        void listBeersCompact() {
+            WebClient compactClient = webClient.mutate()
+                .codecs(configurer -> configurer.customCodecs().register(new Jackson2JsonDecoder(
+                    Jackson2ObjectMapperBuilder.json().modulesToInstall(new BeerPagedListModule()).build(), BeerPagedList.COMPACT_JSON)))
+                .build();
+
+            ResponseEntity<BeerPagedList> response = compactClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BEER_V2_PATH).queryParam("pageSize", 5).build())
+                .accept(BeerPagedList.COMPACT_JSON)
+                .retrieve()
+                .toEntity(BeerPagedList.class)
+                .block();
+
+            assertNotNull(response);
+            assertTrue(BeerPagedList.COMPACT_JSON.isCompatibleWith(response.getHeaders().getContentType()));
+            assertEquals(5, response.getBody().getContent().size());
+            assertNotNull(response.getBody().getNextCursor());
+        }
+
+        @Test
+        void getBeersByIds() {
+            List<BeerDto> beers = webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BEER_V2_PATH).queryParam("ids", "7,5,999999,6").build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToFlux(BeerDto.class)
+                .collectList()
+                .block();
+
+            assertNotNull(beers);
+            assertEquals(List.of(7, 5, 6), beers.stream().map(BeerDto::getId).collect(Collectors.toList()));
+        }
+
+        @Test
+        void getBeersByIdsBadRequest() {
+            WebClientResponseException error = assertThrows(WebClientResponseException.class, () -> webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BEER_V2_PATH).queryParam("ids", "1,two").build())
+                .retrieve()
+                .toBodilessEntity()
+                .block());
+
+            assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        }
+
+        @Test
+        void listBeersWithInvalidCursorBadRequest() {
+            WebClientResponseException error = assertThrows(WebClientResponseException.class, () -> webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BEER_V2_PATH).queryParam("cursor", "not-a-cursor").build())
+                .retrieve()
+                .toBodilessEntity()
+                .block());
+
+            assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        }
+
+        @Test
+        void listBeersWithInvalidSortBadRequest() {
+            WebClientResponseException error = assertThrows(WebClientResponseException.class, () -> webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BEER_V2_PATH).queryParam("sort", "upc").build())
+                .retrieve()
+                .toBodilessEntity()
+                .block());
+
+            assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        }
+
+        @Test
+        void getBeerByIdTooLongBadRequest() {
+            WebClientResponseException error = assertThrows(WebClientResponseException.class, () -> webClient.get()
+                .uri(BEER_V2_PATH + "/99999999999999999999")
+                .retrieve()
+                .toBodilessEntity()
+                .block());
+
+            assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        }
+    }
+
+    @Nested
+    class BinaryBeer {
+
+        WebClient binaryClient;
+
+        @BeforeEach
+        void setUp() {
+            binaryClient = webClient.mutate()
+                .codecs(configurer -> {
+                    configurer.customCodecs().register(new Jackson2CborDecoder(
+                        Jackson2ObjectMapperBuilder.cbor().modulesToInstall(new BeerPagedListModule()).build(), MediaType.APPLICATION_CBOR));
+                    configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(
+                        Jackson2ObjectMapperBuilder.smile().modulesToInstall(new BeerPagedListModule()).build(), CodecConfig.APPLICATION_SMILE));
+                })
+                .build();
+        }
+
+        @Test
+        void getBeerByIdAsCbor() {
+            ResponseEntity<BeerDto> response = binaryClient.get().uri(BEER_V2_PATH + "/1")
+                .accept(MediaType.APPLICATION_CBOR)
+                .retrieve()
+                .toEntity(BeerDto.class)
+                .block();
+
+            assertNotNull(response);
+            assertEquals(MediaType.APPLICATION_CBOR, response.getHeaders().getContentType());
+            assertEquals(1, response.getBody().getId());
+            assertNotNull(response.getBody().getBeerName());
+        }
+
+        @Test
+        void listBeersAsSmile() {
+            ResponseEntity<BeerPagedList> response = binaryClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BEER_V2_PATH).queryParam("pageSize", 5).build())
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .retrieve()
+                .toEntity(BeerPagedList.class)
+                .block();
+
+            assertNotNull(response);
+            assertTrue(CodecConfig.APPLICATION_SMILE.isCompatibleWith(response.getHeaders().getContentType()));
+            assertEquals(5, response.getBody().getContent().size());
+            assertNotNull(response.getBody().getNextCursor());
+        }
+    }
+
+    @Nested
+    class StreamBeer {
+
+        @Test
+        void streamBeersAsNdjson() {
+            List<BeerDto> beers = webClient.get().uri(BeerRouterConfig.BEER_V2_STREAM_URL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerDto.class)
+                .collectList()
+                .block();
+
+            assertNotNull(beers);
+            assertTrue(beers.size() > 0);
+        }
+
+        @Test
+        void streamBeersAsServerSentEvents() {
+            List<BeerDto> beers = webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BeerRouterConfig.BEER_V2_STREAM_URL).queryParam("beerStyle", BeerStyleEnum.IPA).build())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(BeerDto.class)
+                .collectList()
+                .block();
+
+            assertNotNull(beers);
+            assertTrue(beers.size() > 0);
+            beers.forEach(beer -> assertEquals(BeerStyleEnum.IPA.name(), beer.getBeerStyle()));
+        }
+
+        @Test
+        void streamBeersAsServerSentEventsWithCharset() {
+            ResponseEntity<Void> response = webClient.get().uri(BeerRouterConfig.BEER_V2_STREAM_URL)
+                .accept(MediaType.parseMediaType("text/event-stream;charset=UTF-8"))
+                .retrieve()
+                .toBodilessEntity()
+                .block();
+
+            assertNotNull(response);
+            assertTrue(MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(response.getHeaders().getContentType()));
+        }
+
+        @Test
+        void streamBeersNotAcceptable() {
+            WebClientResponseException exception = assertThrows(WebClientResponseException.class, () ->
+                webClient.get().uri(BeerRouterConfig.BEER_V2_STREAM_URL)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block());
+
+            assertEquals(HttpStatus.NOT_ACCEPTABLE, exception.getStatusCode());
+        }
+    }
+
     @Nested
     class PostBeer {
 
@@ -165,6 +395,33 @@ public class WebClientV2IT {
         }
     }
 
+    @Nested
+    class PostBeerBatch {
+
+        @Test
+        void postBeerBatch() {
+            Flux<BeerDto> beers = Flux.just(
+                BeerDto.builder().beerName("Batch Lager").beerStyle(BeerStyleEnum.LAGER.name()).upc("55500000001").build(),
+                BeerDto.builder().price(new BigDecimal("1.99")).build(),
+                BeerDto.builder().beerName("Batch Porter").beerStyle(BeerStyleEnum.PORTER.name()).upc("55500000002").build());
+
+            List<BeerBatchResult> results = webClient.post().uri(BeerRouterConfig.BEER_V2_BATCH_URL)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(beers, BeerDto.class)
+                .retrieve()
+                .bodyToFlux(BeerBatchResult.class)
+                .collectSortedList(Comparator.comparingLong(BeerBatchResult::getIndex))
+                .block();
+
+            assertNotNull(results);
+            assertEquals(3, results.size());
+            assertNotNull(results.get(0).getId());
+            assertNotNull(results.get(1).getErrors());
+            assertNotNull(results.get(2).getId());
+        }
+    }
+
     @Nested
     class PutBeer {
 
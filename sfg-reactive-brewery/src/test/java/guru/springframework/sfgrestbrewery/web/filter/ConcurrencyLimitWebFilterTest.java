@@ -0,0 +1,114 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitWebFilterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+    Sinks.Empty<Void> handling = Sinks.empty();
+
+    @Test
+    void rejectsPastTheLimitWithRetryAfter() {
+        properties.setInitialLimit(2);
+        ConcurrencyLimitWebFilter filter = new ConcurrencyLimitWebFilter(properties, meterRegistry);
+
+        filter.filter(get("/api/v1/beer/1"), exchange -> handling.asMono()).subscribe();
+        filter.filter(get("/api/v2/beer/2"), exchange -> handling.asMono()).subscribe();
+        MockServerWebExchange rejected = get("/api/v1/beer/3");
+        filter.filter(rejected, exchange -> Mono.empty()).block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get(ConcurrencyLimitWebFilter.REJECTED).tag("priority", "read").counter().count());
+
+        handling.tryEmitEmpty();
+        MockServerWebExchange admitted = get("/api/v1/beer/3");
+        filter.filter(admitted, exchange -> Mono.empty()).block();
+        assertNull(admitted.getResponse().getStatusCode());
+    }
+
+    @Test
+    void bulkRequestsGiveWayToReads() {
+        properties.setInitialLimit(4);
+        ConcurrencyLimitWebFilter filter = new ConcurrencyLimitWebFilter(properties, meterRegistry);
+
+        filter.filter(post("/api/v2/beer/batch"), exchange -> handling.asMono()).subscribe();
+        filter.filter(post("/api/v2/beer/batch"), exchange -> handling.asMono()).subscribe();
+        MockServerWebExchange bulk = post("/api/v2/beer/batch");
+        filter.filter(bulk, exchange -> Mono.empty()).block();
+        MockServerWebExchange read = get("/api/v2/beer");
+        filter.filter(read, exchange -> Mono.empty()).block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, bulk.getResponse().getStatusCode());
+        assertNull(read.getResponse().getStatusCode());
+    }
+
+    @Test
+    void ignoresRequestsOutsideTheApi() {
+        properties.setInitialLimit(1);
+        ConcurrencyLimitWebFilter filter = new ConcurrencyLimitWebFilter(properties, meterRegistry);
+
+        filter.filter(get("/api/v1/beer/1"), exchange -> handling.asMono()).subscribe();
+        MockServerWebExchange actuator = get("/actuator/health");
+        filter.filter(actuator, exchange -> Mono.empty()).block();
+
+        assertNull(actuator.getResponse().getStatusCode());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyClimbsAndRecovers() {
+        properties.setInitialLimit(100);
+        GradientLimit limit = new GradientLimit(properties);
+        long baseline = TimeUnit.MILLISECONDS.toNanos(5);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(baseline, 100);
+        }
+        double steady = limit.getLimit();
+        assertTrue(steady > 100);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(baseline * 20, (int) limit.getLimit());
+        }
+        double overloaded = limit.getLimit();
+        assertTrue(overloaded < steady / 2, "limit " + overloaded + " after overload, " + steady + " before");
+        assertTrue(overloaded >= properties.getMinLimit());
+
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(baseline, (int) limit.getLimit());
+        }
+        assertTrue(limit.getLimit() > overloaded);
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostlyIdle() {
+        GradientLimit limit = new GradientLimit(properties);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(5), 1);
+        }
+
+        assertEquals(properties.getInitialLimit(), limit.getLimit());
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    private static MockServerWebExchange post(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post(path));
+    }
+}
@@ -0,0 +1,93 @@
+package guru.springframework.sfgrestbrewery.web.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitWebFilterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RateLimitWebFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        properties.setRoutes(List.of(route("search", "/api/*/beer", "beerName", 2), route("api", "/api/**", null, 100)));
+        filter = new RateLimitWebFilter(properties, meterRegistry);
+    }
+
+    @Test
+    void limitsEachClientSeparately() {
+        assertNull(send(search("partner-a")).getResponse().getStatusCode());
+        MockServerWebExchange last = send(search("partner-a"));
+        assertEquals("0", last.getResponse().getHeaders().getFirst(RateLimitWebFilter.REMAINING_HEADER));
+
+        MockServerWebExchange limited = send(search("partner-a"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getResponse().getStatusCode());
+        assertEquals("2", limited.getResponse().getHeaders().getFirst(RateLimitWebFilter.LIMIT_HEADER));
+        assertEquals("1", limited.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get(RateLimitWebFilter.LIMITED).tag("route", "search").counter().count());
+
+        assertNull(send(search("partner-b")).getResponse().getStatusCode());
+    }
+
+    @Test
+    void firstMatchingRouteWins() {
+        send(search("partner-a"));
+        send(search("partner-a"));
+
+        MockServerWebExchange list = send(MockServerHttpRequest.get("/api/v1/beer").header("X-API-Key", "partner-a"));
+        assertNull(list.getResponse().getStatusCode());
+        assertEquals("99", list.getResponse().getHeaders().getFirst(RateLimitWebFilter.REMAINING_HEADER));
+
+        MockServerWebExchange health = send(MockServerHttpRequest.get("/actuator/health"));
+        assertNull(health.getResponse().getHeaders().getFirst(RateLimitWebFilter.LIMIT_HEADER));
+    }
+
+    @Test
+    void bucketRefillsOverTime() {
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(2, 10, now);
+
+        assertEquals(1, bucket.tryConsume(now));
+        assertEquals(0, bucket.tryConsume(now));
+        long wait = -bucket.tryConsume(now);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+
+        assertEquals(0, bucket.tryConsume(now + wait));
+        assertEquals(1, bucket.tryConsume(now + TimeUnit.SECONDS.toNanos(10)));
+    }
+
+    private MockServerWebExchange send(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, e -> Mono.empty()).block();
+        return exchange;
+    }
+
+    private static MockServerHttpRequest.BaseBuilder<?> search(String apiKey) {
+        return MockServerHttpRequest.get("/api/v1/beer?beerName=Mango").header("X-API-Key", apiKey);
+    }
+
+    private static RateLimitProperties.Route route(String name, String path, String queryParam, int capacity) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName(name);
+        route.setPath(path);
+        route.setQueryParam(queryParam);
+        route.setCapacity(capacity);
+        route.setRefillPerSecond(10);
+        return route;
+    }
+}
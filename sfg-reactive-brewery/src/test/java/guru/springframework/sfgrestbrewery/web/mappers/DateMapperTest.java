@@ -0,0 +1,30 @@
+package guru.springframework.sfgrestbrewery.web.mappers;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DateMapperTest {
+
+    DateMapper dateMapper = new DateMapper();
+
+    @Test
+    void roundTripsWithNanos() {
+        OffsetDateTime dateTime = OffsetDateTime.of(2021, 10, 1, 12, 30, 15, 123_456_789, ZoneOffset.UTC);
+
+        Timestamp timestamp = dateMapper.asTimestamp(dateTime);
+
+        assertEquals(dateTime, dateMapper.asOffsetDateTime(timestamp));
+    }
+
+    @Test
+    void mapsNullToNull() {
+        assertNull(dateMapper.asOffsetDateTime(null));
+        assertNull(dateMapper.asTimestamp(null));
+    }
+}
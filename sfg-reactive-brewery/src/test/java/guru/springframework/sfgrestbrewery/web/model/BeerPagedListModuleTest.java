@@ -0,0 +1,81 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeerPagedListModuleTest {
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BeerPagedListModule()).build();
+
+    @Test
+    void roundTripsPage() throws Exception {
+        BeerPagedList page = new BeerPagedList(Arrays.asList(
+            BeerDto.builder().id(1).beerName("Mango Bobs").beerStyle("ALE").price(new BigDecimal("12.95")).build(),
+            BeerDto.builder().id(2).beerName("Galaxy Cat").beerStyle("PALE_ALE").build()),
+            PageRequest.of(3, 2), 40, "Mg");
+
+        String json = objectMapper.writeValueAsString(page);
+        JsonNode tree = objectMapper.readTree(json);
+        assertFalse(tree.has("pageable"));
+        assertFalse(tree.has("sort"));
+
+        BeerPagedList read = objectMapper.readValue(json, BeerPagedList.class);
+        assertEquals(page.getContent(), read.getContent());
+        assertEquals(3, read.getNumber());
+        assertEquals(2, read.getSize());
+        assertEquals(40, read.getTotalElements());
+        assertEquals("Mg", read.getNextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() throws Exception {
+        BeerPagedList page = new BeerPagedList(Collections.emptyList(), PageRequest.of(0, 25), 0);
+
+        String json = objectMapper.writeValueAsString(page);
+        assertFalse(objectMapper.readTree(json).has("nextCursor"));
+
+        BeerPagedList read = objectMapper.readValue(json, BeerPagedList.class);
+        assertTrue(read.getContent().isEmpty());
+        assertNull(read.getNextCursor());
+    }
+
+    @Test
+    void skipsUnknownFields() throws Exception {
+        String json = "{\"first\":true,\"pageable\":{\"sort\":{\"sorted\":false}},\"content\":[{\"id\":7}],"
+            + "\"number\":0,\"size\":1,\"totalElements\":9}";
+
+        BeerPagedList read = objectMapper.readValue(json, BeerPagedList.class);
+        assertEquals(7, read.getContent().get(0).getId());
+        assertEquals(9, read.getTotalElements());
+    }
+
+    /**
+     * The fixture is the compact page as the brewery writes it; reactive-beer-client reads the same file, so a change
+     * to the format fails one side or the other.
+     */
+    @Test
+    void writesTheContractFixture() throws Exception {
+        BeerPagedList page = new BeerPagedList(Arrays.asList(
+            BeerDto.builder().beerName("Mango Bobs").beerStyle("ALE").upc("0631234200036").price(new BigDecimal("12.95")).build(),
+            BeerDto.builder().beerName("Galaxy Cat").beerStyle("PALE_ALE").upc("9122089364369").build()),
+            PageRequest.of(1, 2), 40, "NA");
+
+        try (InputStream fixture = getClass().getResourceAsStream("/contracts/compact-page.json")) {
+            assertEquals(objectMapper.readTree(fixture), objectMapper.readTree(objectMapper.writeValueAsString(page)));
+        }
+    }
+}
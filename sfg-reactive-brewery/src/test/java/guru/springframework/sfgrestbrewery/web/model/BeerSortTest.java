@@ -0,0 +1,54 @@
+package guru.springframework.sfgrestbrewery.web.model;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeerSortTest {
+
+    @Test
+    void parsesPropertiesInTurnAscendingByDefault() {
+        Sort sort = BeerSort.parse(List.of("price,desc", "beerName"), false);
+
+        assertEquals(Sort.by(Sort.Order.desc(BeerSort.PRICE), Sort.Order.asc(BeerSort.NAME)), sort);
+        assertEquals(Sort.by(Sort.Order.desc(BeerSort.PRICE), Sort.Order.asc(BeerSort.NAME), Sort.Order.asc(BeerSort.ID)),
+            BeerSort.withIdTiebreak(sort));
+        assertFalse(BeerSort.isIdOrder(sort));
+    }
+
+    @Test
+    void rankStandsForRelevance() {
+        assertEquals(Sort.by(BeerSort.RELEVANCE), BeerSort.parse(Collections.emptyList(), true));
+        assertEquals(BeerSort.parse(List.of("relevance"), false), BeerSort.parse(Collections.emptyList(), true));
+    }
+
+    @Test
+    void idOrderIsTheDefault() {
+        Sort unsorted = BeerSort.parse(Collections.emptyList(), false);
+
+        assertTrue(BeerSort.isIdOrder(unsorted));
+        assertTrue(BeerSort.isIdOrder(BeerSort.parse(List.of("id,asc", "price"), false)));
+        assertFalse(BeerSort.isIdOrder(BeerSort.parse(List.of("id,desc"), false)));
+        assertEquals(Sort.by(BeerSort.ID), BeerSort.withIdTiebreak(unsorted));
+        assertEquals(Sort.by(Sort.Order.desc(BeerSort.ID)), BeerSort.withIdTiebreak(Sort.by(Sort.Order.desc(BeerSort.ID))));
+    }
+
+    @Test
+    void rejectsInvalidSorts() {
+        assertThrows(IllegalArgumentException.class, () -> BeerSort.parse(List.of("upc"), false));
+        assertThrows(IllegalArgumentException.class, () -> BeerSort.parse(List.of("price,down"), false));
+        assertThrows(IllegalArgumentException.class, () -> BeerSort.parse(List.of("price,desc,id"), false));
+        assertThrows(IllegalArgumentException.class, () -> BeerSort.parse(List.of("price", "price,desc"), false));
+        assertThrows(IllegalArgumentException.class, () -> BeerSort.parse(List.of("price"), true));
+        assertThrows(IllegalArgumentException.class, () -> BeerSort.parse(List.of("relevance", "id"), false));
+        assertThrows(IllegalArgumentException.class,
+            () -> BeerSort.parse(List.of("price", "beerName", "lastModifiedDate", "id"), false));
+    }
+}